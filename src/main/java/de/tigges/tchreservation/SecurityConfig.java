@@ -5,6 +5,7 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
@@ -33,6 +34,11 @@ public class SecurityConfig {
             "/rest/news/**"
     };
 
+    public static final String[] GET_WHITELIST_URLS = {
+            "/rest/reservation/occupations/*",
+            "/rest/reservation/stream/*"
+    };
+
     private static final String ANGULAR_URL = "/angular/index.html";
     public static final String LOGIN_PROCESSING_URL = "/login";
 
@@ -56,6 +62,7 @@ public class SecurityConfig {
 
     private static void requestConfiguration(AuthorizeHttpRequestsConfigurer<HttpSecurity>.AuthorizationManagerRequestMatcherRegistry requests) {
         requests.requestMatchers(WHITELIST_URLS).permitAll()
+                .requestMatchers(HttpMethod.GET, GET_WHITELIST_URLS).permitAll()
                 .anyRequest().authenticated();
     }
 
@@ -8,9 +8,11 @@ import de.tigges.tchreservation.util.converter.*;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import tools.jackson.databind.module.SimpleModule;
 
 @SpringBootApplication
+@EnableScheduling
 public class TchReservationApplication
 {
 	/**
@@ -12,9 +12,9 @@ public class NewsValidator {
     public final Validator validator;
 
     public  void validate(News news) throws InvalidDataException {
-        validator.clearErrorMessages();
-        validator.checkNotEmpty("subject",news.subject());
-        validator.checkNotEmpty("text", news.text());
-        validator.checkErrorMessages();
+        var context = validator.newContext();
+        context.checkNotEmpty("subject",news.subject());
+        context.checkNotEmpty("text", news.text());
+        context.checkErrorMessages();
     }
 }
@@ -0,0 +1,312 @@
+package de.tigges.tchreservation.protocol;
+
+import de.tigges.tchreservation.protocol.jpa.ProtocolRepository;
+import de.tigges.tchreservation.protocol.model.Protocol;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * move old protocol entries from the database into compressed segment files, one per month
+ * <p>
+ * a segment ({@code protocol-yyyy-MM.ndjson.gz}) is append-only: every archive run appends one gzip member with
+ * the entries of that month. Its index ({@code protocol-yyyy-MM.idx}) has one line per entry with id, entity type,
+ * entity id, time and the position of the member, and is written after the member. Readers only decompress the
+ * members of matching index lines, so a member without index lines (archive run aborted) is never read.
+ * <p>
+ * the id of the last archived entry is kept in {@code archive.state}; entries up to this id are only deleted from
+ * the database by the next run, not archived again. The archive is disabled if no directory is configured.
+ */
+@Component
+@Log4j2
+public class ProtocolArchive {
+
+    static final int CHUNK_SIZE = 5000;
+    static final String STATE_FILE = "archive.state";
+
+    private final ProtocolRepository protocolRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Path directory;
+    private final Duration maxAge;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public ProtocolArchive(
+            ProtocolRepository protocolRepository,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            @Value("${protocol.archive.directory:}") String directory,
+            @Value("${protocol.archive.max-age:P365D}") Duration maxAge) {
+        this.protocolRepository = protocolRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.directory = StringUtils.hasText(directory) ? Path.of(directory) : null;
+        this.maxAge = maxAge;
+    }
+
+    public boolean isEnabled() {
+        return directory != null;
+    }
+
+    /**
+     * entries up to this id are in the archive, but may still be in the database until the next run deletes them
+     *
+     * @return id of the last archived entry, 0 if nothing is archived
+     */
+    public long getLastArchivedId() {
+        if (!isEnabled()) {
+            return 0;
+        }
+        try {
+            return readState();
+        } catch (IOException e) {
+            throw new UncheckedIOException("could not read protocol archive state " + directory, e);
+        }
+    }
+
+    /**
+     * archive all entries older than the configured age
+     *
+     * @return number of entries deleted from the database
+     */
+    @Scheduled(cron = "${protocol.archive.cron:0 30 3 * * *}")
+    public synchronized int archive() {
+        if (!isEnabled()) {
+            return 0;
+        }
+        var before = LocalDateTime.now().minus(maxAge);
+        var deleted = 0;
+        try {
+            Files.createDirectories(directory);
+            var lastArchivedId = readState();
+            var afterId = 0L;
+            List<Protocol> chunk;
+            do {
+                chunk = protocolRepository.findOlderThan(before, afterId, Limit.of(CHUNK_SIZE));
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                var newestArchived = lastArchivedId;
+                append(chunk.stream().filter(p -> p.id() > newestArchived).toList());
+                afterId = chunk.getLast().id();
+                if (afterId > lastArchivedId) {
+                    lastArchivedId = afterId;
+                    writeState(lastArchivedId);
+                }
+                var maxId = afterId;
+                deleted += transactionTemplate.execute(status -> protocolRepository.deleteOlderThan(before, maxId));
+            } while (chunk.size() == CHUNK_SIZE);
+        } catch (IOException e) {
+            log.error("protocol archive failed in {}", directory, e);
+        }
+        if (deleted > 0) {
+            log.info("archived {} protocol entries older than {}", deleted, before);
+        }
+        return deleted;
+    }
+
+    /**
+     * read archived entries, newest first
+     *
+     * @param limit maximum number of entries
+     */
+    public List<Protocol> find(ProtocolFilter filter, int limit) {
+        var result = new ArrayList<Protocol>();
+        for (var month : months(filter)) {
+            if (result.size() >= limit) {
+                break;
+            }
+            readSegment(month, filter).stream().limit(limit - result.size()).forEach(result::add);
+        }
+        return result;
+    }
+
+    /**
+     * read all archived entries month by month, newest first, without holding more than one month in memory
+     */
+    public Stream<Protocol> stream(ProtocolFilter filter) {
+        return months(filter).stream().flatMap(month -> readSegment(month, filter).stream());
+    }
+
+    /**
+     * helper method to append the entries as one member per month
+     */
+    private void append(List<Protocol> protocols) throws IOException {
+        var months = protocols.stream().collect(Collectors.groupingBy(
+                p -> YearMonth.from(p.time()), TreeMap::new, Collectors.toList()));
+        lock.writeLock().lock();
+        try {
+            for (var entry : months.entrySet()) {
+                appendMember(entry.getKey(), entry.getValue());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void appendMember(YearMonth month, List<Protocol> protocols) throws IOException {
+        var writer = objectMapper.writerFor(Protocol.class);
+        var member = new ByteArrayOutputStream();
+        try (var gzip = new GZIPOutputStream(member)) {
+            for (var protocol : protocols) {
+                gzip.write(writer.writeValueAsBytes(protocol));
+                gzip.write('\n');
+            }
+        }
+        long offset;
+        try (var channel = FileChannel.open(segment(month),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            offset = channel.size();
+            channel.write(ByteBuffer.wrap(member.toByteArray()));
+            channel.force(true);
+        }
+        var index = new StringBuilder();
+        for (var protocol : protocols) {
+            index.append(new IndexLine(protocol.id(), protocol.entityType(), protocol.entityId(), protocol.time(),
+                    offset, member.size()).format()).append('\n');
+        }
+        try (var channel = FileChannel.open(index(month),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(StandardCharsets.UTF_8.encode(index.toString()));
+            channel.force(true);
+        }
+    }
+
+    /**
+     * helper method to read the matching entries of one month, newest first
+     */
+    private List<Protocol> readSegment(YearMonth month, ProtocolFilter filter) {
+        lock.readLock().lock();
+        try (var lines = Files.lines(index(month))) {
+            Map<Long, Integer> members = new LinkedHashMap<>();
+            lines.map(IndexLine::parse)
+                    .filter(line -> filter.matches(line.entityType(), line.entityId(), line.time(), line.id()))
+                    .forEach(line -> members.put(line.offset(), line.length()));
+            var ids = new LinkedHashSet<Long>();
+            var result = new ArrayList<Protocol>();
+            try (var channel = FileChannel.open(segment(month), StandardOpenOption.READ)) {
+                for (var member : members.entrySet()) {
+                    readMember(channel, member.getKey(), member.getValue(), filter::matches).stream()
+                            .filter(p -> ids.add(p.id()))
+                            .forEach(result::add);
+                }
+            }
+            result.sort(Comparator.comparingLong(Protocol::id).reversed());
+            return result;
+        } catch (IOException e) {
+            throw new UncheckedIOException("could not read protocol archive " + month, e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Protocol> readMember(FileChannel channel, long offset, int length, Predicate<Protocol> filter)
+            throws IOException {
+        var buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining() && channel.read(buffer, offset + buffer.position()) >= 0) {
+            // read the whole member
+        }
+        var reader = objectMapper.readerFor(Protocol.class);
+        try (var lines = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new ByteArrayInputStream(buffer.array())), StandardCharsets.UTF_8))) {
+            return lines.lines().<Protocol>map(reader::readValue).filter(filter).toList();
+        }
+    }
+
+    /**
+     * helper method to list the archived months which may contain matching entries, newest first
+     */
+    private List<YearMonth> months(ProtocolFilter filter) {
+        if (!isEnabled() || !Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (var files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith("protocol-") && name.endsWith(".idx"))
+                    .map(name -> YearMonth.parse(name.substring("protocol-".length(), name.length() - ".idx".length())))
+                    .filter(month -> filter.since() == null || !month.isBefore(YearMonth.from(filter.since())))
+                    .sorted(Comparator.reverseOrder())
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("could not list protocol archive " + directory, e);
+        }
+    }
+
+    private Path segment(YearMonth month) {
+        return directory.resolve("protocol-%s.ndjson.gz".formatted(month));
+    }
+
+    private Path index(YearMonth month) {
+        return directory.resolve("protocol-%s.idx".formatted(month));
+    }
+
+    private long readState() throws IOException {
+        var state = directory.resolve(STATE_FILE);
+        return Files.exists(state) ? Long.parseLong(Files.readString(state).trim()) : 0;
+    }
+
+    private void writeState(long lastArchivedId) throws IOException {
+        var temp = directory.resolve(STATE_FILE + ".tmp");
+        Files.writeString(temp, Long.toString(lastArchivedId), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE, StandardOpenOption.SYNC);
+        Files.move(temp, directory.resolve(STATE_FILE), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private record IndexLine(long id, EntityType entityType, long entityId, LocalDateTime time, long offset,
+                             int length) {
+
+        static IndexLine parse(String line) {
+            var fields = line.split("\t");
+            return new IndexLine(
+                    Long.parseLong(fields[0]),
+                    EntityType.valueOf(fields[1]),
+                    Long.parseLong(fields[2]),
+                    LocalDateTime.parse(fields[3]),
+                    Long.parseLong(fields[4]),
+                    Integer.parseInt(fields[5]));
+        }
+
+        String format() {
+            return String.join("\t", Long.toString(id), entityType.name(), Long.toString(entityId), time.toString(),
+                    Long.toString(offset), Integer.toString(length));
+        }
+    }
+}
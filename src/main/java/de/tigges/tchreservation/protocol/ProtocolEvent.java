@@ -0,0 +1,46 @@
+package de.tigges.tchreservation.protocol;
+
+import de.tigges.tchreservation.user.jpa.UserEntity;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * protocol entry which has not been serialized yet
+ * <p>
+ * the protocol fields are taken when the event is created, so later changes of the entity do not show up.
+ *
+ * @param oldFields changed fields of the entity before a modification, null for other actions
+ */
+public record ProtocolEvent(
+        LocalDateTime time,
+        EntityType entityType,
+        long entityId,
+        ActionType actionType,
+        Map<String, String> fields,
+        Map<String, String> oldFields,
+        UserEntity user) {
+
+    public static ProtocolEvent of(Protocollable entity, ActionType actionType, UserEntity user) {
+        return new ProtocolEvent(
+                LocalDateTime.now(),
+                entity.protocolEntityType(),
+                entity.protocolEntityId(),
+                actionType,
+                entity.protocolFields(),
+                null,
+                user);
+    }
+
+    public static ProtocolEvent modified(Protocollable entity, Protocollable oldEntity, UserEntity user) {
+        var fields = entity.protocolFields();
+        return new ProtocolEvent(
+                LocalDateTime.now(),
+                entity.protocolEntityType(),
+                entity.protocolEntityId(),
+                ActionType.MODIFY,
+                fields,
+                ProtocolFields.changed(oldEntity.protocolFields(), fields),
+                user);
+    }
+}
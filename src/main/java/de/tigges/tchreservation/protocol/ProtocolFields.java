@@ -0,0 +1,175 @@
+package de.tigges.tchreservation.protocol;
+
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectReader;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * read only protocol fields, backed by the key value array of {@link Protocollable#protocolFields(String...)}
+ * <p>
+ * the fields keep the order in which they are defined. A modification is protocolled with all new fields and only
+ * the changed old fields ({@link #changed(Map, Map)}); {@link #decodeOld(String, String)} reconstructs all old
+ * fields. Entries written before contain all old fields, which are decoded the same way.
+ * <p>
+ * fields which only exist in the new version are listed in the old fields under {@value #ADDED_KEYS}, separated by
+ * comma, so they are not part of the reconstructed old fields.
+ */
+public final class ProtocolFields extends AbstractMap<String, String> {
+
+    static final String ADDED_KEYS = "@added";
+
+    private static final ObjectReader FIELDS_READER = new ObjectMapper()
+            .readerFor(new TypeReference<LinkedHashMap<String, String>>() {
+            });
+
+    private final String[] keyValues;
+
+    ProtocolFields(String... keyValues) {
+        if (keyValues.length % 2 != 0) {
+            throw new IllegalArgumentException("key values not even.");
+        }
+        this.keyValues = keyValues;
+    }
+
+    @Override
+    public String get(Object key) {
+        for (int i = 0; i < keyValues.length; i += 2) {
+            if (keyValues[i].equals(key)) {
+                return keyValues[i + 1];
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        for (int i = 0; i < keyValues.length; i += 2) {
+            if (keyValues[i].equals(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return keyValues.length / 2;
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, String>> iterator() {
+                return new Iterator<>() {
+                    private int i;
+
+                    @Override
+                    public boolean hasNext() {
+                        return i < keyValues.length;
+                    }
+
+                    @Override
+                    public Entry<String, String> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        var entry = new SimpleImmutableEntry<>(keyValues[i], keyValues[i + 1]);
+                        i += 2;
+                        return entry;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return ProtocolFields.this.size();
+            }
+        };
+    }
+
+    /**
+     * @return the old fields which differ from the new fields, with their old values, and the keys which only exist
+     * in the new fields
+     */
+    public static Map<String, String> changed(Map<String, String> oldFields, Map<String, String> newFields) {
+        if (oldFields instanceof ProtocolFields o && newFields instanceof ProtocolFields n && o.hasSameKeys(n)) {
+            var changed = new String[o.keyValues.length];
+            var length = 0;
+            for (int i = 0; i < o.keyValues.length; i += 2) {
+                if (!Objects.equals(o.keyValues[i + 1], n.keyValues[i + 1])) {
+                    changed[length++] = o.keyValues[i];
+                    changed[length++] = o.keyValues[i + 1];
+                }
+            }
+            return new ProtocolFields(Arrays.copyOf(changed, length));
+        }
+        var changed = new LinkedHashMap<String, String>();
+        oldFields.forEach((key, value) -> {
+            if (!newFields.containsKey(key) || !Objects.equals(value, newFields.get(key))) {
+                changed.put(key, value);
+            }
+        });
+        var added = newFields.keySet().stream()
+                .filter(key -> !oldFields.containsKey(key))
+                .collect(Collectors.joining(","));
+        if (!added.isEmpty()) {
+            changed.put(ADDED_KEYS, added);
+        }
+        return changed;
+    }
+
+    /**
+     * @param value protocolled fields as json
+     */
+    public static Map<String, String> decode(String value) {
+        if (value == null) {
+            return Map.of();
+        }
+        try {
+            return FIELDS_READER.readValue(value);
+        } catch (JacksonException e) {
+            throw new IllegalArgumentException("invalid protocol value " + value, e);
+        }
+    }
+
+    /**
+     * reconstruct all old fields of a modification
+     *
+     * @param value    all new fields as json
+     * @param oldValue changed old fields as json
+     */
+    public static Map<String, String> decodeOld(String value, String oldValue) {
+        var fields = new LinkedHashMap<>(decode(value));
+        fields.putAll(decode(oldValue));
+        var added = fields.remove(ADDED_KEYS);
+        if (added != null) {
+            fields.keySet().removeAll(Arrays.asList(added.split(",")));
+        }
+        return fields;
+    }
+
+    private boolean hasSameKeys(ProtocolFields other) {
+        if (keyValues.length != other.keyValues.length) {
+            return false;
+        }
+        for (int i = 0; i < keyValues.length; i += 2) {
+            if (!keyValues[i].equals(other.keyValues[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
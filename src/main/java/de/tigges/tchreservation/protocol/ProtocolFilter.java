@@ -0,0 +1,36 @@
+package de.tigges.tchreservation.protocol;
+
+import de.tigges.tchreservation.protocol.model.Protocol;
+
+import java.time.LocalDateTime;
+
+/**
+ * filter of protocol entries; null values match all entries
+ *
+ * @param since    only entries after this time
+ * @param beforeId only entries with a lower id (keyset pagination)
+ */
+public record ProtocolFilter(
+        LocalDateTime since,
+        Long beforeId,
+        EntityType entityType,
+        Long entityId,
+        ActionType actionType,
+        Long userId) {
+
+    public boolean matches(Protocol protocol) {
+        return matches(protocol.entityType(), protocol.entityId(), protocol.time(), protocol.id())
+                && (actionType == null || actionType == protocol.actionType())
+                && (userId == null || userId == protocol.userId());
+    }
+
+    /**
+     * match the fields which are available without reading the whole entry
+     */
+    public boolean matches(EntityType entityType, long entityId, LocalDateTime time, long id) {
+        return (this.entityType == null || this.entityType == entityType)
+                && (this.entityId == null || this.entityId == entityId)
+                && (since == null || time.isAfter(since))
+                && (beforeId == null || id < beforeId);
+    }
+}
@@ -2,30 +2,155 @@ package de.tigges.tchreservation.protocol;
 
 import de.tigges.tchreservation.protocol.jpa.ProtocolEntity;
 import de.tigges.tchreservation.protocol.jpa.ProtocolRepository;
+import de.tigges.tchreservation.protocol.model.Protocol;
+import de.tigges.tchreservation.protocol.model.ProtocolMapper;
 import de.tigges.tchreservation.user.LoggedInUserService;
 import de.tigges.tchreservation.user.model.UserRole;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import tools.jackson.databind.ObjectMapper;
 
+import java.io.IOException;
 import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
 import java.util.TimeZone;
+import java.util.TreeMap;
 
+/**
+ * read the protocol; modifications are returned with all old fields, see {@link ProtocolFields#decodeOld}
+ */
 @RestController
 @RequestMapping("/rest/protocol")
 @RequiredArgsConstructor
 public class ProtocolService {
 
+    static final int DEFAULT_PAGE_SIZE = 100;
+    static final int MAX_PAGE_SIZE = 1000;
+
     private final ProtocolRepository protocolRepository;
     private final LoggedInUserService loggedinUserService;
+    private final ObjectMapper objectMapper;
+    private final ProtocolArchive protocolArchive;
 
+    /**
+     * get all protocol entries after a time, newest first, including archived entries
+     */
     @GetMapping("/{time}")
     public Iterable<ProtocolEntity> getSince(@PathVariable Long time) {
         loggedinUserService.verifyHasRole(UserRole.ADMIN);
-        return protocolRepository.findByTimeGreaterThanOrderByIdDesc(toLocalDateTime(time));
+        var since = toLocalDateTime(time);
+        var protocols = new ArrayList<ProtocolEntity>();
+        var ids = new HashSet<Long>();
+        protocolRepository.findByTimeGreaterThanOrderByIdDesc(since).forEach(p -> {
+            ids.add(p.getId());
+            protocols.add(ProtocolMapper.withAllOldFields(p));
+        });
+        // entries of an interrupted archive run may still be in the database
+        try (var archived = protocolArchive.stream(new ProtocolFilter(since, null, null, null, null, null))) {
+            archived.filter(p -> !ids.contains(p.id()))
+                    .map(ProtocolMapper::withAllOldFields)
+                    .map(ProtocolMapper::map)
+                    .forEach(protocols::add);
+        }
+        protocols.sort(Comparator.comparing(ProtocolEntity::getId).reversed());
+        return protocols;
+    }
+
+    /**
+     * get the change history of one entity, oldest first, including archived entries
+     */
+    @GetMapping("/{entityType}/{entityId}")
+    public List<Protocol> getHistory(@PathVariable EntityType entityType, @PathVariable long entityId) {
+        loggedinUserService.verifyHasRole(UserRole.ADMIN);
+        var history = new TreeMap<Long, Protocol>();
+        protocolRepository.findHistory(entityType, entityId).forEach(p -> history.put(p.id(), p));
+        // entries of an interrupted archive run may still be in the database
+        protocolArchive.find(new ProtocolFilter(null, null, entityType, entityId, null, null), Integer.MAX_VALUE)
+                .forEach(p -> history.putIfAbsent(p.id(), p));
+        return history.values().stream().map(ProtocolMapper::withAllOldFields).toList();
+    }
+
+    /**
+     * get one page of protocol entries, newest first; the page continues with archived entries
+     *
+     * @param afterId id of the last entry of the previous page, null for the first page
+     * @param limit   page size, at most {@value #MAX_PAGE_SIZE}
+     */
+    @GetMapping("")
+    public List<Protocol> getPage(
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit,
+            @RequestParam(required = false) EntityType entityType,
+            @RequestParam(required = false) ActionType actionType,
+            @RequestParam(required = false) Long userId) {
+        loggedinUserService.verifyHasRole(UserRole.ADMIN);
+        var pageSize = Math.clamp(limit, 1, MAX_PAGE_SIZE);
+        var page = protocolRepository.findPage(afterId, entityType, actionType, userId, Limit.of(pageSize));
+        if (page.size() == pageSize && page.getLast().id() > protocolArchive.getLastArchivedId()) {
+            return page.stream().map(ProtocolMapper::withAllOldFields).toList();
+        }
+        // entries of an interrupted archive run may still be in the database
+        var protocols = new TreeMap<Long, Protocol>(Comparator.reverseOrder());
+        page.forEach(p -> protocols.put(p.id(), p));
+        protocolArchive.find(new ProtocolFilter(null, afterId, entityType, null, actionType, userId), pageSize)
+                .forEach(p -> protocols.putIfAbsent(p.id(), p));
+        return protocols.values().stream().limit(pageSize).map(ProtocolMapper::withAllOldFields).toList();
+    }
+
+    /**
+     * export protocol entries as newline delimited json, newest first
+     * <p>
+     * the entries are written to the response while the rows are read, so the export does not hold the
+     * whole protocol in memory. Archived entries follow the entries of the database; archived entries which are
+     * still in the database are only written once.
+     *
+     * @param since only entries after this time (epoch millis), all entries if null
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Transactional(readOnly = true)
+    public void export(
+            @RequestParam(required = false) Long since,
+            @RequestParam(required = false) EntityType entityType,
+            @RequestParam(required = false) ActionType actionType,
+            @RequestParam(required = false) Long userId,
+            HttpServletResponse response) throws IOException {
+        loggedinUserService.verifyHasRole(UserRole.ADMIN);
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        var writer = objectMapper.writerFor(Protocol.class);
+        var out = response.getOutputStream();
+        // the database rows are read from one snapshot, so they contain all entries archived after this id
+        var lastArchivedId = protocolArchive.getLastArchivedId();
+        var archivedInDatabase = new HashSet<Long>();
+        try (var protocols = protocolRepository.streamAll(
+                since == null ? null : toLocalDateTime(since), entityType, actionType, userId)) {
+            for (var protocol : (Iterable<Protocol>) protocols::iterator) {
+                if (protocol.id() <= lastArchivedId) {
+                    archivedInDatabase.add(protocol.id());
+                }
+                out.write(writer.writeValueAsBytes(ProtocolMapper.withAllOldFields(protocol)));
+                out.write('\n');
+            }
+        }
+        try (var archived = protocolArchive.stream(new ProtocolFilter(
+                since == null ? null : toLocalDateTime(since), null, entityType, null, actionType, userId))
+                .filter(p -> p.id() <= lastArchivedId && !archivedInDatabase.contains(p.id()))) {
+            for (var protocol : (Iterable<Protocol>) archived::iterator) {
+                out.write(writer.writeValueAsBytes(ProtocolMapper.withAllOldFields(protocol)));
+                out.write('\n');
+            }
+        }
     }
 
     private static LocalDateTime toLocalDateTime(long time) {
@@ -0,0 +1,213 @@
+package de.tigges.tchreservation.protocol;
+
+import de.tigges.tchreservation.protocol.jpa.ProtocolEntity;
+import de.tigges.tchreservation.protocol.jpa.ProtocolRepository;
+import de.tigges.tchreservation.user.jpa.UserEntity;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static de.tigges.tchreservation.util.TransactionUtil.afterCommit;
+
+/**
+ * write protocol entries in batches
+ * <p>
+ * callers only take a snapshot of the protocol fields ({@link ProtocolEvent}); serialization and insert happen
+ * later, all entries of one batch are inserted with jdbc batches. The {@link ProtocolDurability} decides when:
+ * <ul>
+ *     <li>{@link ProtocolDurability#COMMIT}: the entries of a transaction are written just before it commits,
+ *     so they are committed or rolled back together with the changes they describe</li>
+ *     <li>{@link ProtocolDurability#ASYNC}: the entries are queued after commit and written by a background
+ *     thread; entries still queued are lost if the JVM dies. A full queue is written by the caller.</li>
+ * </ul>
+ * Without a transaction the entries are written immediately in both modes.
+ */
+@Component
+@Log4j2
+public class ProtocolWriter {
+
+    static final int BATCH_SIZE = 200;
+
+    public enum ProtocolDurability {
+        COMMIT,
+        ASYNC
+    }
+
+    private final ProtocolRepository protocolRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ProtocolDurability durability;
+    private final BlockingQueue<ProtocolEvent> queue;
+    private final AtomicLong pending = new AtomicLong();
+    private final Thread worker;
+
+    public ProtocolWriter(
+            ProtocolRepository protocolRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${protocol.durability:COMMIT}") ProtocolDurability durability,
+            @Value("${protocol.queue-capacity:10000}") int queueCapacity) {
+        this.protocolRepository = protocolRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.durability = durability;
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+        this.worker = durability == ProtocolDurability.ASYNC
+                ? Thread.ofPlatform().daemon().name("protocol-writer").start(this::run)
+                : null;
+    }
+
+    public void write(Protocollable entity, ActionType actionType, UserEntity user) {
+        write(ProtocolEvent.of(entity, actionType, user));
+    }
+
+    public void write(Protocollable entity, Protocollable oldEntity, UserEntity user) {
+        write(ProtocolEvent.modified(entity, oldEntity, user));
+    }
+
+    public void write(ProtocolEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            writeBatch(List.of(event));
+        } else if (durability == ProtocolDurability.ASYNC) {
+            afterCommit(() -> enqueue(event));
+        } else {
+            transactionBuffer().add(event);
+        }
+    }
+
+    /**
+     * wait until all queued entries have been written, woken up by the writer when the queue is drained
+     *
+     * @return false if there are still entries after the timeout
+     */
+    boolean flush(Duration timeout) {
+        var end = System.nanoTime() + timeout.toNanos();
+        synchronized (pending) {
+            while (pending.get() > 0) {
+                var remaining = end - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(pending, remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    ProtocolDurability getDurability() {
+        return durability;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (worker != null) {
+            worker.interrupt();
+            try {
+                worker.join(Duration.ofSeconds(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        writeQueued();
+    }
+
+    /**
+     * helper method to collect the entries of the current transaction, which are written before it commits
+     */
+    @SuppressWarnings("unchecked")
+    private List<ProtocolEvent> transactionBuffer() {
+        var buffer = (List<ProtocolEvent>) TransactionSynchronizationManager.getResource(this);
+        if (buffer == null) {
+            var events = new ArrayList<ProtocolEvent>();
+            TransactionSynchronizationManager.bindResource(this, events);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    TransactionSynchronizationManager.unbindResource(ProtocolWriter.this);
+                    saveAll(events);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ProtocolWriter.this);
+                }
+            });
+            buffer = events;
+        }
+        return buffer;
+    }
+
+    private void enqueue(ProtocolEvent event) {
+        pending.incrementAndGet();
+        if (!queue.offer(event)) {
+            // the writer does not keep up, slow down the callers instead of losing entries
+            try {
+                writeBatch(List.of(event));
+            } finally {
+                written(1);
+            }
+        }
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                var batch = new ArrayList<ProtocolEvent>(BATCH_SIZE);
+                batch.add(queue.take());
+                queue.drainTo(batch, BATCH_SIZE - 1);
+                writeQueuedBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void writeQueued() {
+        var batch = new ArrayList<ProtocolEvent>(BATCH_SIZE);
+        while (queue.drainTo(batch, BATCH_SIZE) > 0) {
+            writeQueuedBatch(batch);
+            batch.clear();
+        }
+    }
+
+    private void writeQueuedBatch(List<ProtocolEvent> batch) {
+        try {
+            writeBatch(batch);
+        } catch (RuntimeException e) {
+            log.error("could not write {} protocol entries: {}", batch.size(), batch, e);
+        } finally {
+            written(batch.size());
+        }
+    }
+
+    private void written(int count) {
+        if (pending.addAndGet(-count) == 0) {
+            synchronized (pending) {
+                pending.notifyAll();
+            }
+        }
+    }
+
+    private void writeBatch(List<ProtocolEvent> events) {
+        transactionTemplate.executeWithoutResult(status -> saveAll(events));
+    }
+
+    private void saveAll(List<ProtocolEvent> events) {
+        protocolRepository.saveAll(events.stream().map(ProtocolEntity::new).toList());
+    }
+}
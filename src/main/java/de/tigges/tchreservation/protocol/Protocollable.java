@@ -1,6 +1,5 @@
 package de.tigges.tchreservation.protocol;
 
-import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -26,20 +25,12 @@ public interface Protocollable {
 	/**
 	 * helper method to define all protocol fields
 	 * <p>
+	 * the fields are not copied, the returned map reads the key-value array.
 	 * 
 	 * @param keyValues varargs with key-values pairs
 	 * @return map of all protocol fields
 	 */
 	default Map<String, String> protocolFields(String... keyValues) {
-
-		if (keyValues.length % 2 != 0) {
-			throw new IllegalArgumentException("key values not even.");
-		}
-		Map<String, String> fields = new HashMap<>();
-		int i = 0;
-		while (i < keyValues.length) {
-			fields.put(keyValues[i++], keyValues[i++]);
-		}
-		return fields;
+		return new ProtocolFields(keyValues);
 	}
 }
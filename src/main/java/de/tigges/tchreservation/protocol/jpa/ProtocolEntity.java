@@ -2,10 +2,12 @@ package de.tigges.tchreservation.protocol.jpa;
 
 import tools.jackson.core.JacksonException;
 import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectWriter;
 import de.tigges.tchreservation.util.exception.ErrorCode;
 import de.tigges.tchreservation.util.exception.RestException;
 import de.tigges.tchreservation.protocol.ActionType;
 import de.tigges.tchreservation.protocol.EntityType;
+import de.tigges.tchreservation.protocol.ProtocolEvent;
 import de.tigges.tchreservation.protocol.Protocollable;
 import de.tigges.tchreservation.user.jpa.UserEntity;
 import jakarta.persistence.*;
@@ -17,6 +19,7 @@ import org.hibernate.Hibernate;
 import org.springframework.http.HttpStatus;
 
 import java.time.LocalDateTime;
+import java.util.Map;
 import java.util.Objects;
 
 @Entity
@@ -27,22 +30,34 @@ import java.util.Objects;
 @NoArgsConstructor
 public class ProtocolEntity {
 
+    /**
+     * shared serializer of the protocol fields, thread safe and configured once
+     */
+    private static final ObjectWriter FIELDS_WRITER = new ObjectMapper().writerFor(Map.class);
+
     public ProtocolEntity(Protocollable entity, ActionType actionType, UserEntity user) {
-        setTime(LocalDateTime.now());
-        setEntityType(entity.protocolEntityType());
-        setEntityId(entity.protocolEntityId());
-        setValue(toJson(entity.protocolFields()));
-        setActionType(actionType);
-        setUser(user);
+        this(ProtocolEvent.of(entity, actionType, user));
     }
 
     public ProtocolEntity(Protocollable entity, Protocollable oldEntity, UserEntity user) {
-        this(entity, ActionType.MODIFY, user);
-        this.setOldValue(toJson(oldEntity.protocolFields()));
+        this(ProtocolEvent.modified(entity, oldEntity, user));
+    }
+
+    public ProtocolEntity(ProtocolEvent event) {
+        setTime(event.time());
+        setEntityType(event.entityType());
+        setEntityId(event.entityId());
+        setValue(toJson(event.fields()));
+        if (event.oldFields() != null) {
+            setOldValue(toJson(event.oldFields()));
+        }
+        setActionType(event.actionType());
+        setUser(event.user());
     }
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "protocol_seq")
+    @SequenceGenerator(name = "protocol_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -79,9 +94,12 @@ public class ProtocolEntity {
         return getClass().hashCode();
     }
 
-    private String toJson(Object o) {
+    /**
+     * helper method to write protocol fields as json, see {@link de.tigges.tchreservation.protocol.ProtocolFields#decode(String)}
+     */
+    public static String toJson(Map<String, String> o) {
         try {
-            return new ObjectMapper().writeValueAsString(o);
+            return FIELDS_WRITER.writeValueAsString(o);
         } catch (JacksonException e) {
             throw new RestException(HttpStatus.INTERNAL_SERVER_ERROR,
                     ErrorCode.JSON_SERIALIZATION,
@@ -0,0 +1,27 @@
+package de.tigges.tchreservation.protocol.jpa;
+
+import de.tigges.tchreservation.protocol.ActionType;
+import de.tigges.tchreservation.protocol.EntityType;
+import de.tigges.tchreservation.protocol.model.Protocol;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * protocol queries with optional filters; only the given filters become part of the statement, so the database
+ * can use the index of each filter (see <code>schema-postgres.sql</code>)
+ */
+public interface ProtocolQueries {
+
+    /**
+     * read one page of protocol entries with ids lower than afterId, newest first; null filters match all
+     */
+    List<Protocol> findPage(Long afterId, EntityType entityType, ActionType actionType, Long userId, Limit limit);
+
+    /**
+     * stream all protocol entries newer than since, newest first; must be consumed inside a transaction
+     */
+    Stream<Protocol> streamAll(LocalDateTime since, EntityType entityType, ActionType actionType, Long userId);
+}
@@ -0,0 +1,77 @@
+package de.tigges.tchreservation.protocol.jpa;
+
+import de.tigges.tchreservation.protocol.ActionType;
+import de.tigges.tchreservation.protocol.EntityType;
+import de.tigges.tchreservation.protocol.model.Protocol;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+
+@RequiredArgsConstructor
+class ProtocolQueriesImpl implements ProtocolQueries {
+
+    private final EntityManager entityManager;
+
+    @Override
+    public List<Protocol> findPage(Long afterId, EntityType entityType, ActionType actionType, Long userId,
+                                   Limit limit) {
+        var query = new Filter(entityType, actionType, userId)
+                .and("p.id < :afterId", "afterId", afterId)
+                .create(entityManager);
+        if (limit.isLimited()) {
+            query.setMaxResults(limit.max());
+        }
+        return query.getResultList();
+    }
+
+    @Override
+    public Stream<Protocol> streamAll(LocalDateTime since, EntityType entityType, ActionType actionType,
+                                      Long userId) {
+        return new Filter(entityType, actionType, userId)
+                .and("p.time > :since", "since", since)
+                .create(entityManager)
+                .setHint(HINT_FETCH_SIZE, 500)
+                .getResultStream();
+    }
+
+    /**
+     * conditions of the given filters, newest entries first
+     */
+    static class Filter {
+        private final StringBuilder where = new StringBuilder();
+        private final Map<String, Object> parameters = new LinkedHashMap<>();
+
+        Filter(EntityType entityType, ActionType actionType, Long userId) {
+            and("p.entityType = :entityType", "entityType", entityType);
+            and("p.actionType = :actionType", "actionType", actionType);
+            and("u.id = :userId", "userId", userId);
+        }
+
+        Filter and(String condition, String parameter, Object value) {
+            if (value != null) {
+                where.append(where.isEmpty() ? " where " : " and ").append(condition);
+                parameters.put(parameter, value);
+            }
+            return this;
+        }
+
+        String jpql() {
+            return ProtocolRepository.PROTOCOL_SELECT + where + " order by p.id desc";
+        }
+
+        TypedQuery<Protocol> create(EntityManager entityManager) {
+            var query = entityManager.createQuery(jpql(), Protocol.class);
+            parameters.forEach(query::setParameter);
+            return query;
+        }
+    }
+}
@@ -1,14 +1,44 @@
 package de.tigges.tchreservation.protocol.jpa;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 
 import de.tigges.tchreservation.protocol.EntityType;
+import de.tigges.tchreservation.protocol.model.Protocol;
 
-public interface ProtocolRepository extends CrudRepository<ProtocolEntity, Long> {
+public interface ProtocolRepository extends CrudRepository<ProtocolEntity, Long>, ProtocolQueries {
+
+	String PROTOCOL_SELECT = """
+			select new de.tigges.tchreservation.protocol.model.Protocol(
+			    p.id, p.time, p.entityType, p.entityId, p.actionType, p.value, p.oldValue, u.id, u.name)
+			from ProtocolEntity p join p.user u
+			""";
 
 	Iterable<ProtocolEntity> findByEntityTypeAndEntityId(EntityType entityType, Long id);
 
 	Iterable<ProtocolEntity> findByTimeGreaterThanOrderByIdDesc(LocalDateTime time);
+
+	/**
+	 * read all entries of one entity, oldest first
+	 */
+	@Query(PROTOCOL_SELECT + " where p.entityType = :entityType and p.entityId = :entityId order by p.id")
+	List<Protocol> findHistory(EntityType entityType, long entityId);
+
+	/**
+	 * read the next chunk of entries older than a time, ordered by id
+	 */
+	@Query(PROTOCOL_SELECT + " where p.time < :before and p.id > :afterId order by p.id")
+	List<Protocol> findOlderThan(LocalDateTime before, long afterId, Limit limit);
+
+	/**
+	 * delete entries older than a time up to an id
+	 */
+	@Modifying
+	@Query("delete from ProtocolEntity p where p.time < :before and p.id <= :maxId")
+	int deleteOlderThan(LocalDateTime before, long maxId);
 }
@@ -0,0 +1,21 @@
+package de.tigges.tchreservation.protocol.model;
+
+import de.tigges.tchreservation.protocol.ActionType;
+import de.tigges.tchreservation.protocol.EntityType;
+
+import java.time.LocalDateTime;
+
+/**
+ * protocol entry with the id and name of the user instead of the complete user
+ */
+public record Protocol(
+        long id,
+        LocalDateTime time,
+        EntityType entityType,
+        long entityId,
+        ActionType actionType,
+        String value,
+        String oldValue,
+        long userId,
+        String userName) {
+}
@@ -0,0 +1,61 @@
+package de.tigges.tchreservation.protocol.model;
+
+import de.tigges.tchreservation.protocol.ProtocolFields;
+import de.tigges.tchreservation.protocol.jpa.ProtocolEntity;
+import de.tigges.tchreservation.user.jpa.UserEntity;
+
+public class ProtocolMapper {
+
+	/**
+	 * map an archived protocol entry; the user only has id and name
+	 */
+	public static ProtocolEntity map(Protocol p) {
+		if (p == null) {
+			return null;
+		}
+		var user = new UserEntity();
+		user.setId(p.userId());
+		user.setName(p.userName());
+		var e = new ProtocolEntity();
+		e.setId(p.id());
+		e.setTime(p.time());
+		e.setEntityType(p.entityType());
+		e.setEntityId(p.entityId());
+		e.setActionType(p.actionType());
+		e.setValue(p.value());
+		e.setOldValue(p.oldValue());
+		e.setUser(user);
+		return e;
+	}
+
+	/**
+	 * map a protocol entry with all old fields instead of the changed old fields
+	 */
+	public static Protocol withAllOldFields(Protocol p) {
+		if (p.oldValue() == null) {
+			return p;
+		}
+		return new Protocol(p.id(), p.time(), p.entityType(), p.entityId(), p.actionType(), p.value(),
+				ProtocolEntity.toJson(ProtocolFields.decodeOld(p.value(), p.oldValue())), p.userId(), p.userName());
+	}
+
+	/**
+	 * map a protocol entry with all old fields instead of the changed old fields; a read entity is copied, so the
+	 * stored entry is not changed
+	 */
+	public static ProtocolEntity withAllOldFields(ProtocolEntity p) {
+		if (p.getOldValue() == null) {
+			return p;
+		}
+		var e = new ProtocolEntity();
+		e.setId(p.getId());
+		e.setTime(p.getTime());
+		e.setEntityType(p.getEntityType());
+		e.setEntityId(p.getEntityId());
+		e.setActionType(p.getActionType());
+		e.setValue(p.getValue());
+		e.setOldValue(ProtocolEntity.toJson(ProtocolFields.decodeOld(p.getValue(), p.getOldValue())));
+		e.setUser(p.getUser());
+		return e;
+	}
+}
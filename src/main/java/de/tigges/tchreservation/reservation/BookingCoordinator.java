@@ -0,0 +1,72 @@
+package de.tigges.tchreservation.reservation;
+
+import de.tigges.tchreservation.reservation.model.Occupation;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.IntStream;
+
+/**
+ * serialize concurrent bookings of the same court and day
+ * <p>
+ * the locks are striped by (systemConfigId, date, court); bookings of other courts and days mostly hit other
+ * stripes and proceed in parallel. All stripes of a booking are acquired at once in ascending order, so bookings
+ * of several courts or days cannot deadlock. The locks are held until the transaction has completed, i.e. after the
+ * {@link OccupationIndex} has seen the committed occupations, so validation and insert form one critical section.
+ */
+@Component
+public class BookingCoordinator {
+
+    static final int STRIPES = 1024;
+
+    private final ReentrantLock[] locks = IntStream.range(0, STRIPES)
+            .mapToObj(i -> new ReentrantLock())
+            .toArray(ReentrantLock[]::new);
+
+    /**
+     * lock all courts and days of the occupations until the current transaction has completed
+     * <p>
+     * must be called once per transaction, before the occupations are validated
+     */
+    public void lock(Collection<Occupation> occupations) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("booking locks require an active transaction");
+        }
+        var stripes = occupations.stream()
+                .flatMapToInt(this::stripes)
+                .distinct()
+                .sorted()
+                .toArray();
+        var acquired = new ArrayList<Integer>(stripes.length);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                acquired.forEach(stripe -> locks[stripe].unlock());
+            }
+        });
+        for (int stripe : stripes) {
+            locks[stripe].lock();
+            acquired.add(stripe);
+        }
+    }
+
+    boolean isLocked(long systemConfigId, LocalDate date, int court) {
+        return locks[stripe(systemConfigId, date, court)].isLocked();
+    }
+
+    private IntStream stripes(Occupation occupation) {
+        var lastCourt = Math.max(occupation.getCourt(), occupation.getLastCourt());
+        return IntStream.rangeClosed(occupation.getCourt(), lastCourt)
+                .map(court -> stripe(occupation.getSystemConfigId(), occupation.getDate(), court));
+    }
+
+    private static int stripe(long systemConfigId, LocalDate date, int court) {
+        return Math.floorMod(Objects.hash(systemConfigId, date, court), STRIPES);
+    }
+}
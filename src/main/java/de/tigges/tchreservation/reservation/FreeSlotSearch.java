@@ -0,0 +1,121 @@
+package de.tigges.tchreservation.reservation;
+
+import de.tigges.tchreservation.reservation.model.FreeSlot;
+import de.tigges.tchreservation.reservation.model.ReservationSystemConfig;
+import de.tigges.tchreservation.reservation.model.SystemConfigReservationType;
+import de.tigges.tchreservation.user.jpa.UserEntity;
+import de.tigges.tchreservation.util.exception.BadRequestException;
+import de.tigges.tchreservation.util.exception.ErrorCode;
+import de.tigges.tchreservation.util.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * search the earliest free slots of one day which match the rules of a reservation type
+ */
+@Component
+@RequiredArgsConstructor
+public class FreeSlotSearch {
+
+    static final int MAX_FREE_SLOTS = 20;
+
+    private final OccupationIndex occupationIndex;
+    private final Validator validator;
+
+    /**
+     * @param courts court numbers to search, all courts if empty
+     * @return the earliest free slots ordered by start and court
+     */
+    public List<FreeSlot> findFreeSlots(
+            LocalDate date,
+            int duration,
+            Collection<Integer> courts,
+            int type,
+            UserEntity loggedInUser,
+            ReservationSystemConfig systemConfig) {
+
+        var reservationType = getType(type, systemConfig);
+        validateRole(reservationType, loggedInUser);
+        validateDuration(duration, reservationType, loggedInUser);
+        var searchCourts = getCourts(courts, systemConfig);
+
+        var now = LocalDateTime.now();
+        if (date.isBefore(now.toLocalDate()) || reservationType.forbiddenDaysOfWeek().contains(date.getDayOfWeek())) {
+            return List.of();
+        }
+
+        return occupationIndex.findFree(systemConfig.id(), date, duration, searchCourts, firstRow(date, now, systemConfig),
+                        systemConfig)
+                .stream()
+                .filter(slot -> !isTooFarInFuture(slot, now, reservationType))
+                .sorted(Comparator.comparing(FreeSlot::start).thenComparing(FreeSlot::court))
+                .limit(MAX_FREE_SLOTS)
+                .toList();
+    }
+
+    private SystemConfigReservationType getType(int type, ReservationSystemConfig systemConfig) {
+        return systemConfig.types().stream()
+                .filter(t -> t.type() == type)
+                .findAny()
+                .orElseThrow(() -> new BadRequestException(validator.messageUtil, ErrorCode.INVALID_RESERVATION_TYPE));
+    }
+
+    /**
+     * helper method to reject a type which the user cannot book, like {@link OccupationValidator}
+     */
+    private void validateRole(SystemConfigReservationType type, UserEntity loggedInUser) {
+        if (!type.roles().contains(loggedInUser.getRole())) {
+            throw new BadRequestException(validator.messageUtil, ErrorCode.USER_CANNOT_ADD_TYPE,
+                    loggedInUser.getName(), type.name());
+        }
+    }
+
+    private void validateDuration(int duration, SystemConfigReservationType type, UserEntity loggedInUser) {
+        if (duration < 1) {
+            throw new BadRequestException(validator.messageUtil, ErrorCode.DURATION_TOO_SMALL);
+        }
+        if (type.maxDuration() > 0 && duration > type.maxDuration()) {
+            throw new BadRequestException(validator.messageUtil, ErrorCode.DURATION_TOO_LONG,
+                    loggedInUser.getName(), duration);
+        }
+    }
+
+    private Collection<Integer> getCourts(Collection<Integer> courts, ReservationSystemConfig systemConfig) {
+        var size = systemConfig.courts().size();
+        if (courts == null || courts.isEmpty()) {
+            return IntStream.rangeClosed(1, size).boxed().toList();
+        }
+        for (int court : courts) {
+            if (court < 1) {
+                throw new BadRequestException(validator.messageUtil, ErrorCode.COURT_TOO_SMALL, court);
+            }
+            if (court > size) {
+                throw new BadRequestException(validator.messageUtil, ErrorCode.COURT_TOO_BIG, court, size);
+            }
+        }
+        return courts;
+    }
+
+    /**
+     * helper method to skip the rows of today which have already started
+     */
+    private static int firstRow(LocalDate date, LocalDateTime now, ReservationSystemConfig systemConfig) {
+        if (date.isAfter(now.toLocalDate())) {
+            return 0;
+        }
+        var minutes = now.getHour() * 60 + now.getMinute() - systemConfig.openingHour() * 60;
+        return Math.ceilDiv(minutes, systemConfig.durationUnitInMinutes());
+    }
+
+    private static boolean isTooFarInFuture(FreeSlot slot, LocalDateTime now, SystemConfigReservationType type) {
+        return type.maxDaysReservationInFuture() > 0
+                && !LocalDateTime.of(slot.date(), slot.start()).isBefore(now.plusDays(type.maxDaysReservationInFuture()));
+    }
+}
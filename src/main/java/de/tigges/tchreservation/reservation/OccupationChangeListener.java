@@ -0,0 +1,34 @@
+package de.tigges.tchreservation.reservation;
+
+import de.tigges.tchreservation.reservation.jpa.OccupationEntity;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * JPA entity listener passing every write on the occupation table to {@link OccupationChanges}
+ * <p>
+ * the bean is looked up lazily because it depends on the entity manager factory which creates this listener
+ */
+@RequiredArgsConstructor
+public class OccupationChangeListener {
+
+    private final ObjectProvider<OccupationChanges> occupationChanges;
+
+    @PostPersist
+    void created(OccupationEntity occupation) {
+        occupationChanges.getObject().created(occupation);
+    }
+
+    @PostUpdate
+    void modified(OccupationEntity occupation) {
+        occupationChanges.getObject().modified(occupation);
+    }
+
+    @PostRemove
+    void removed(OccupationEntity occupation) {
+        occupationChanges.getObject().removed(occupation);
+    }
+}
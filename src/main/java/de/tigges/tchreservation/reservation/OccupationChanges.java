@@ -0,0 +1,38 @@
+package de.tigges.tchreservation.reservation;
+
+import de.tigges.tchreservation.protocol.ActionType;
+import de.tigges.tchreservation.reservation.jpa.OccupationEntity;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * propagate written occupations to the {@link OccupationVersions}, which also make the {@link OccupationIndex}
+ * reload the changed days, and to the subscribers of {@link OccupationEvents}
+ * <p>
+ * called by {@link OccupationChangeListener} for every entity write; set-based writes which bypass the
+ * entity listener have to call it themselves.
+ */
+@Component
+@RequiredArgsConstructor
+public class OccupationChanges {
+
+    private final OccupationVersions occupationVersions;
+    private final OccupationEvents occupationEvents;
+
+    public void created(OccupationEntity occupation) {
+        changed(ActionType.CREATE, occupation);
+    }
+
+    public void modified(OccupationEntity occupation) {
+        changed(ActionType.MODIFY, occupation);
+    }
+
+    public void removed(OccupationEntity occupation) {
+        changed(ActionType.DELETE, occupation);
+    }
+
+    private void changed(ActionType action, OccupationEntity occupation) {
+        occupationVersions.changed(occupation.getSystemConfigId(), occupation.getDate());
+        occupationEvents.publish(action, occupation);
+    }
+}
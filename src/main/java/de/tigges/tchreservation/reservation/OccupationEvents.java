@@ -0,0 +1,173 @@
+package de.tigges.tchreservation.reservation;
+
+import de.tigges.tchreservation.protocol.ActionType;
+import de.tigges.tchreservation.reservation.jpa.OccupationEntity;
+import de.tigges.tchreservation.reservation.model.OccupationEvent;
+import de.tigges.tchreservation.util.exception.ErrorCode;
+import de.tigges.tchreservation.util.exception.RestException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static de.tigges.tchreservation.util.TransactionUtil.afterCommit;
+
+/**
+ * push occupation changes to the subscribers of a system config as server-sent events
+ * <p>
+ * the connections are held by async servlet requests ({@link SseEmitter}), so an idle subscriber does not
+ * occupy a request thread. Every subscriber has its own bounded queue drained by a virtual thread;
+ * a subscriber which does not keep up is disconnected and has to reconnect. The number of subscribers per node is
+ * limited, and idle subscribers get a comment as heartbeat, so proxies do not drop their connections silently.
+ * <p>
+ * the events are only published on the node which has written the occupation; with several nodes a subscriber
+ * only sees the changes made on its own node and has to reload the court plan to see the others.
+ */
+@Component
+@Log4j2
+public class OccupationEvents {
+
+    static final Duration TIMEOUT = Duration.ofMinutes(30);
+    static final int QUEUE_SIZE = 100;
+
+    private final int maxSubscribers;
+    private final Duration heartbeat;
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public OccupationEvents(
+            @Value("${occupation.events.max-subscribers:1000}") int maxSubscribers,
+            @Value("${occupation.events.heartbeat:PT20S}") Duration heartbeat) {
+        this.maxSubscribers = maxSubscribers;
+        this.heartbeat = heartbeat;
+    }
+
+    /**
+     * subscribe to all occupation changes of a system config
+     *
+     * @throws RestException with status 503 if the node has already the maximum number of subscribers
+     */
+    public SseEmitter subscribe(long systemConfigId) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new RestException(HttpStatus.SERVICE_UNAVAILABLE, ErrorCode.TOO_MANY_SUBSCRIBERS,
+                    "more than %d subscribers of occupation events".formatted(maxSubscribers));
+        }
+        var subscriber = new Subscriber(systemConfigId, new SseEmitter(TIMEOUT.toMillis()));
+        subscribers.computeIfAbsent(systemConfigId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        subscriber.emitter.onCompletion(() -> unsubscribe(subscriber));
+        subscriber.emitter.onTimeout(() -> unsubscribe(subscriber));
+        subscriber.emitter.onError(e -> unsubscribe(subscriber));
+        subscriber.start();
+        return subscriber.emitter;
+    }
+
+    /**
+     * publish a change after the current transaction has been committed
+     */
+    public void publish(ActionType action, OccupationEntity occupation) {
+        var event = new OccupationEvent(
+                action,
+                occupation.getId(),
+                occupation.getSystemConfigId(),
+                occupation.getDate(),
+                occupation.getStart(),
+                occupation.getDuration(),
+                occupation.getCourt(),
+                occupation.getLastCourt(),
+                occupation.getType(),
+                occupation.getText());
+        afterCommit(() -> subscribers.getOrDefault(event.systemConfigId(), Set.of())
+                .forEach(subscriber -> subscriber.offer(event)));
+    }
+
+    int getSubscriberCount(long systemConfigId) {
+        return subscribers.getOrDefault(systemConfigId, Set.of()).size();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        subscribers.values().forEach(s -> s.forEach(subscriber -> subscriber.emitter.complete()));
+        executor.shutdownNow();
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        if (!subscriber.subscribed.compareAndSet(true, false)) {
+            return;
+        }
+        subscriberCount.decrementAndGet();
+        subscribers.computeIfPresent(subscriber.systemConfigId, (id, s) -> {
+            s.remove(subscriber);
+            return s.isEmpty() ? null : s;
+        });
+        subscriber.stop();
+    }
+
+    private final class Subscriber {
+        private final long systemConfigId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<OccupationEvent> queue = new ArrayBlockingQueue<>(QUEUE_SIZE);
+        private final AtomicBoolean subscribed = new AtomicBoolean(true);
+        private volatile Future<?> sender;
+
+        Subscriber(long systemConfigId, SseEmitter emitter) {
+            this.systemConfigId = systemConfigId;
+            this.emitter = emitter;
+        }
+
+        void start() {
+            sender = executor.submit(this::send);
+        }
+
+        void stop() {
+            if (sender != null) {
+                sender.cancel(true);
+            }
+        }
+
+        void offer(OccupationEvent event) {
+            if (!queue.offer(event)) {
+                log.warn("subscriber of system config {} too slow, disconnecting", systemConfigId);
+                unsubscribe(this);
+                emitter.complete();
+            }
+        }
+
+        private void send() {
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    var event = queue.poll(heartbeat.toMillis(), TimeUnit.MILLISECONDS);
+                    if (event == null) {
+                        emitter.send(SseEmitter.event().comment("heartbeat"));
+                    } else {
+                        emitter.send(SseEmitter.event()
+                                .name(event.action().name().toLowerCase())
+                                .data(event));
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException | IllegalStateException e) {
+                log.debug("subscriber of system config {} disconnected: {}", systemConfigId, e.getMessage());
+                unsubscribe(this);
+            }
+        }
+    }
+}
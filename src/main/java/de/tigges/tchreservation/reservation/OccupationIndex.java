@@ -0,0 +1,306 @@
+package de.tigges.tchreservation.reservation;
+
+import de.tigges.tchreservation.reservation.jpa.OccupationEntity;
+import de.tigges.tchreservation.reservation.jpa.OccupationRepository;
+import de.tigges.tchreservation.reservation.model.FreeSlot;
+import de.tigges.tchreservation.reservation.model.Occupation;
+import de.tigges.tchreservation.reservation.model.ReservationSystemConfig;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * in-memory index of occupied courts per system config and day
+ * <p>
+ * every day holds one {@link BitSet} per court with one bit per
+ * {@link ReservationSystemConfig#durationUnitInMinutes()} row (see {@link ReservationSystemConfigUtil}),
+ * so an overlap check is a word-wise AND instead of a database query.
+ * Days are loaded lazily.
+ * <p>
+ * every cached day remembers the {@link OccupationVersions version} it has been loaded with and is reloaded when
+ * the version has changed. Writes of this node invalidate the version after commit, before the booking locks are
+ * released; writes of other nodes sharing the database are seen after at most the time to live of the version
+ * cache.
+ */
+@Component
+@RequiredArgsConstructor
+public class OccupationIndex {
+
+    private final OccupationRepository occupationRepository;
+    private final OccupationVersions occupationVersions;
+    private final Map<DayKey, DayOccupancy> days = new ConcurrentHashMap<>();
+
+    /**
+     * @return true if the occupation overlaps with any other occupation of the same day
+     */
+    public boolean isOccupied(Occupation occupation, ReservationSystemConfig systemConfig) {
+        var entry = Entry.of(occupation);
+        return getDay(entry.key(), systemConfig).isOccupied(entry);
+    }
+
+    /**
+     * find the earliest start of every free period of at least <code>duration</code> rows per court
+     * <p>
+     * walks the gaps between the occupied intervals of each court instead of testing every row.
+     *
+     * @param fromRow first row which may be used, e.g. to skip the past of today
+     */
+    public List<FreeSlot> findFree(
+            long systemConfigId,
+            LocalDate date,
+            int duration,
+            Collection<Integer> courts,
+            int fromRow,
+            ReservationSystemConfig systemConfig) {
+        var day = getDay(new DayKey(systemConfigId, date), systemConfig);
+        var freeSlots = new ArrayList<FreeSlot>();
+        for (int court : courts) {
+            for (int row : day.freeRows(court, Math.max(0, fromRow), duration)) {
+                var minutes = ReservationSystemConfigUtil.toMinutes(systemConfig, row);
+                freeSlots.add(new FreeSlot(date, LocalTime.of(minutes / 60, minutes % 60), duration, court));
+            }
+        }
+        return freeSlots;
+    }
+
+    /**
+     * load all days of a date range which are not cached or outdated with a single query
+     * <p>
+     * every day is cached with the version read before the query. A day written meanwhile is cached with its old
+     * version and reloaded by its next check, the other days of the range are kept.
+     *
+     * @return the occupancy of the date range, which is checked without database access
+     */
+    public Occupancy load(long systemConfigId, LocalDate from, LocalDate to, ReservationSystemConfig systemConfig) {
+        var versions = occupationVersions.getVersions(systemConfigId, from, to);
+        var rangeDays = new HashMap<DayKey, DayOccupancy>();
+        var missingDays = new HashMap<DayKey, Map<Long, Entry>>();
+        from.datesUntil(to.plusDays(1)).forEach(date -> {
+            var key = new DayKey(systemConfigId, date);
+            var day = days.get(key);
+            if (isCurrent(day, systemConfig, versions.getOrDefault(date, 0L))) {
+                rangeDays.put(key, day);
+            } else {
+                missingDays.put(key, new HashMap<>());
+            }
+        });
+        if (missingDays.isEmpty()) {
+            return new Occupancy(rangeDays);
+        }
+        occupationRepository.findBySystemConfigIdAndDateBetween(systemConfigId, from, to).forEach(o -> {
+            var entry = Entry.of(o);
+            var dayEntries = missingDays.get(entry.key());
+            if (dayEntries != null) {
+                dayEntries.put(entry.id(), entry);
+            }
+        });
+        removePastDays();
+        missingDays.forEach((key, dayEntries) -> rangeDays.put(key, install(key,
+                new DayOccupancy(systemConfig, versions.getOrDefault(key.date(), 0L), dayEntries))));
+        return new Occupancy(rangeDays);
+    }
+
+    private DayOccupancy getDay(DayKey key, ReservationSystemConfig systemConfig) {
+        // read before the occupations, so a write in between leads to a reload instead of a lost update
+        var version = occupationVersions.getVersion(key.systemConfigId(), key.date());
+        var day = days.get(key);
+        if (isCurrent(day, systemConfig, version)) {
+            return day;
+        }
+        removePastDays();
+        // the query runs outside of the map, because a compute would block all other days of the same bin
+        return install(key, load(key, systemConfig, version));
+    }
+
+    private DayOccupancy load(DayKey key, ReservationSystemConfig systemConfig, long version) {
+        var entries = new HashMap<Long, Entry>();
+        occupationRepository.findBySystemConfigIdAndDate(key.systemConfigId(), key.date())
+                .forEach(o -> entries.put(o.getId(), Entry.of(o)));
+        return new DayOccupancy(systemConfig, version, entries);
+    }
+
+    /**
+     * helper method to cache a loaded day, unless another thread has meanwhile cached a newer one
+     */
+    private DayOccupancy install(DayKey key, DayOccupancy loaded) {
+        return days.merge(key, loaded, (current, l) ->
+                current.matches(l.systemConfig) && current.version > l.version ? current : l);
+    }
+
+    private static boolean isCurrent(DayOccupancy day, ReservationSystemConfig systemConfig, long version) {
+        return day != null && day.matches(systemConfig) && day.version == version;
+    }
+
+    private void removePastDays() {
+        var today = LocalDate.now();
+        days.keySet().removeIf(key -> key.date().isBefore(today));
+    }
+
+    /**
+     * immutable occupancy of the days of a date range, e.g. for a validation in parallel which must not access the
+     * database from its worker threads
+     */
+    public static final class Occupancy {
+        private final Map<DayKey, DayOccupancy> days;
+
+        private Occupancy(Map<DayKey, DayOccupancy> days) {
+            this.days = days;
+        }
+
+        static Occupancy empty() {
+            return new Occupancy(Map.of());
+        }
+
+        /**
+         * @return true if the occupation overlaps with any other occupation of the same day
+         * @throws IllegalArgumentException if the day of the occupation is not part of the date range
+         */
+        public boolean isOccupied(Occupation occupation) {
+            var entry = Entry.of(occupation);
+            var day = days.get(entry.key());
+            if (day == null) {
+                throw new IllegalArgumentException("day not loaded: " + occupation.getDate());
+            }
+            return day.isOccupied(entry);
+        }
+    }
+
+    private record DayKey(long systemConfigId, LocalDate date) {
+    }
+
+    private record Entry(
+            Long id,
+            long systemConfigId,
+            LocalDate date,
+            LocalTime start,
+            int duration,
+            int court,
+            int lastCourt) {
+
+        static Entry of(OccupationEntity o) {
+            return new Entry(o.getId(), o.getSystemConfigId(), o.getDate(), o.getStart(), o.getDuration(),
+                    o.getCourt(), o.getLastCourt());
+        }
+
+        static Entry of(Occupation o) {
+            return new Entry(o.getId(), o.getSystemConfigId(), o.getDate(), o.getStart(), o.getDuration(),
+                    o.getCourt(), o.getLastCourt());
+        }
+
+        DayKey key() {
+            return new DayKey(systemConfigId, date);
+        }
+
+        int lastCourtOrCourt() {
+            return Math.max(court, lastCourt);
+        }
+    }
+
+    /**
+     * immutable occupancy of one day
+     */
+    private static final class DayOccupancy {
+        private final ReservationSystemConfig systemConfig;
+        private final long version;
+        private final Map<Long, Entry> entries;
+        private final BitSet[] courts;
+
+        DayOccupancy(ReservationSystemConfig systemConfig, long version, Map<Long, Entry> entries) {
+            this.systemConfig = systemConfig;
+            this.version = version;
+            this.entries = entries;
+            this.courts = new BitSet[systemConfig.courts().size() + 1];
+            for (int court = 1; court < courts.length; court++) {
+                courts[court] = new BitSet(ReservationSystemConfigUtil.getRows(systemConfig));
+            }
+            entries.values().forEach(entry -> {
+                var rows = rows(entry);
+                for (int court = firstCourt(entry); court <= lastCourt(entry); court++) {
+                    courts[court].or(rows);
+                }
+            });
+        }
+
+        boolean matches(ReservationSystemConfig other) {
+            return systemConfig.durationUnitInMinutes() == other.durationUnitInMinutes()
+                    && systemConfig.openingHour() == other.openingHour()
+                    && systemConfig.closingHour() == other.closingHour()
+                    && systemConfig.courts().size() == other.courts().size();
+        }
+
+        boolean isOccupied(Entry entry) {
+            var rows = rows(entry);
+            for (int court = firstCourt(entry); court <= lastCourt(entry); court++) {
+                if (courts[court].intersects(rows) && (entry.id() == null || overlapsOther(entry, court, rows))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * @return the first row of every gap with at least <code>duration</code> free rows
+         */
+        List<Integer> freeRows(int court, int fromRow, int duration) {
+            var rows = ReservationSystemConfigUtil.getRows(systemConfig);
+            var occupied = courts[court];
+            var freeRows = new ArrayList<Integer>();
+            var start = occupied.nextClearBit(fromRow);
+            while (start + duration <= rows) {
+                var end = occupied.nextSetBit(start);
+                if (end < 0 || end > rows) {
+                    end = rows;
+                }
+                if (end - start >= duration) {
+                    freeRows.add(start);
+                }
+                start = occupied.nextClearBit(end);
+            }
+            return freeRows;
+        }
+
+        /**
+         * slow path for an occupation that is already stored: ignore its own bits
+         */
+        private boolean overlapsOther(Entry entry, int court, BitSet rows) {
+            return entries.values().stream()
+                    .filter(other -> !Objects.equals(other.id(), entry.id()))
+                    .filter(other -> firstCourt(other) <= court && court <= lastCourt(other))
+                    .anyMatch(other -> rows(other).intersects(rows));
+        }
+
+        private BitSet rows(Entry entry) {
+            var rows = new BitSet();
+            if (entry.start() == null) {
+                return rows;
+            }
+            var unit = systemConfig.durationUnitInMinutes();
+            var startMinutes = entry.start().getHour() * 60 + entry.start().getMinute() - systemConfig.openingHour() * 60;
+            var from = Math.max(0, Math.floorDiv(startMinutes, unit));
+            var to = Math.min(ReservationSystemConfigUtil.getRows(systemConfig),
+                    Math.ceilDiv(startMinutes + entry.duration() * unit, unit));
+            if (from < to) {
+                rows.set(from, to);
+            }
+            return rows;
+        }
+
+        private int firstCourt(Entry entry) {
+            return Math.max(1, entry.court());
+        }
+
+        private int lastCourt(Entry entry) {
+            return Math.min(courts.length - 1, entry.lastCourtOrCourt());
+        }
+    }
+}
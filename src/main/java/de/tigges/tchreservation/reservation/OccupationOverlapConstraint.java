@@ -0,0 +1,36 @@
+package de.tigges.tchreservation.reservation;
+
+import java.sql.SQLException;
+
+/**
+ * database constraint rejecting overlapping occupations of the same court
+ * <p>
+ * PostgreSQL enforces it with an exclusion constraint (see <code>schema-postgres.sql</code>),
+ * H2 with a trigger raising the same SQL state.
+ */
+public final class OccupationOverlapConstraint {
+
+    public static final String NAME = "occupation_no_overlap";
+
+    /**
+     * SQL state of a PostgreSQL exclusion constraint violation
+     */
+    public static final String SQL_STATE = "23P01";
+
+    private OccupationOverlapConstraint() {
+    }
+
+    /**
+     * @return true if the exception has been caused by a violation of this constraint
+     */
+    public static boolean isViolation(Throwable throwable) {
+        for (var cause = throwable; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException
+                    && (SQL_STATE.equals(sqlException.getSQLState())
+                    || (sqlException.getMessage() != null && sqlException.getMessage().contains(NAME)))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,51 @@
+package de.tigges.tchreservation.reservation;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * report overlapping occupations which prevent the exclusion constraint {@link OccupationOverlapConstraint}
+ * <p>
+ * <code>schema-postgres.sql</code> lists them in the table <code>occupation_overlap_conflict</code> instead of
+ * failing the start. Until they are resolved, overlaps are only rejected by the application.
+ */
+@Component
+@Profile("postgres")
+@RequiredArgsConstructor
+@Log4j2
+public class OccupationOverlapReport {
+
+    private final EntityManager entityManager;
+
+    /**
+     * @return pairs of ids of overlapping occupations
+     */
+    public List<Object[]> getConflicts() {
+        @SuppressWarnings("unchecked")
+        List<Object[]> conflicts = entityManager.createNativeQuery("""
+                        SELECT occupation_id, other_occupation_id FROM occupation_overlap_conflict
+                        ORDER BY occupation_id, other_occupation_id
+                        """)
+                .getResultList();
+        return conflicts;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void report() {
+        var conflicts = getConflicts();
+        if (!conflicts.isEmpty()) {
+            log.error("constraint {} is missing, {} pairs of occupations overlap: {}",
+                    OccupationOverlapConstraint.NAME, conflicts.size(), conflicts.stream()
+                            .map(c -> c[0] + "/" + c[1])
+                            .collect(Collectors.joining(", ")));
+        }
+    }
+}
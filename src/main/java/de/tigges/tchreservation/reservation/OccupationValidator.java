@@ -1,16 +1,14 @@
 package de.tigges.tchreservation.reservation;
 
 import de.tigges.tchreservation.util.exception.AuthorizationException;
-import de.tigges.tchreservation.util.exception.BadRequestException;
 import de.tigges.tchreservation.util.exception.ErrorCode;
-import de.tigges.tchreservation.reservation.jpa.OccupationEntity;
-import de.tigges.tchreservation.reservation.jpa.OccupationRepository;
 import de.tigges.tchreservation.reservation.model.Occupation;
 import de.tigges.tchreservation.reservation.model.ReservationSystemConfig;
 import de.tigges.tchreservation.reservation.model.SystemConfigReservationType;
 import de.tigges.tchreservation.user.jpa.UserEntity;
 import de.tigges.tchreservation.user.model.ActivationStatus;
 import de.tigges.tchreservation.user.model.UserRole;
+import de.tigges.tchreservation.util.validation.ValidationContext;
 import de.tigges.tchreservation.util.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -20,13 +18,17 @@ import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Predicate;
 
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class OccupationValidator {
-    private final OccupationRepository occupationRepository;
+    private final OccupationIndex occupationIndex;
     private final Validator validator;
 
     private static Duration durationUntilStart(Occupation occupation) {
@@ -41,75 +43,130 @@ public class OccupationValidator {
             Occupation occupation,
             UserEntity loggedInUser,
             ReservationSystemConfig systemConfig) {
-        validator.clearErrorMessages();
-
-        validateSystemConfigId(occupation);
-        validateText(occupation);
-        var reservationType = getType(occupation, systemConfig);
-        validateStart(occupation, loggedInUser, systemConfig, reservationType);
-        validateDuration(occupation, loggedInUser, reservationType);
-        validateCourt(occupation, systemConfig);
-        validateUserIsActive(loggedInUser);
-        validateType(occupation, loggedInUser, systemConfig, reservationType);
-        validateOverlap(occupation, systemConfig);
+        checkOccupation(occupation, loggedInUser, systemConfig).checkErrorMessages();
+    }
 
-        validator.checkErrorMessages();
+    /**
+     * validate an occupation without throwing for invalid data
+     * <p>
+     * a missing system config or reservation type and an overlap are reported as the only violation.
+     *
+     * @return the violations of the occupation
+     * @throws AuthorizationException if the user is not active
+     */
+    public ValidationContext checkOccupation(
+            Occupation occupation,
+            UserEntity loggedInUser,
+            ReservationSystemConfig systemConfig) {
+        return checkOccupation(occupation, loggedInUser, systemConfig, o -> occupationIndex.isOccupied(o, systemConfig));
     }
 
-    private void validateOverlap(Occupation occupation, ReservationSystemConfig systemConfig) {
-        occupationRepository
-                .findBySystemConfigIdAndDate(occupation.getSystemConfigId(), occupation.getDate())
-                .forEach(occupationEntity -> checkOverlap(occupation, occupationEntity, systemConfig));
+    /**
+     * validate an occupation against the occupancy returned by {@link #loadOccupations}, without database access
+     *
+     * @return the violations of the occupation
+     * @throws AuthorizationException if the user is not active
+     */
+    public ValidationContext checkOccupation(
+            Occupation occupation,
+            UserEntity loggedInUser,
+            ReservationSystemConfig systemConfig,
+            OccupationIndex.Occupancy occupancy) {
+        return checkOccupation(occupation, loggedInUser, systemConfig, occupancy::isOccupied);
     }
 
-    private void checkOverlap(Occupation o1, OccupationEntity o2, ReservationSystemConfig systemConfig) {
-        if (o1.getId() == o2.getId()) {
-            return;
-        }
-        if (o1.getSystemConfigId() != o2.getSystemConfigId()) {
-            return;
+    /**
+     * helper method to validate an occupation with the given overlap check
+     */
+    private ValidationContext checkOccupation(
+            Occupation occupation,
+            UserEntity loggedInUser,
+            ReservationSystemConfig systemConfig,
+            Predicate<Occupation> overlaps) {
+        if (occupation.getSystemConfigId() <= 0) {
+            return rejected(ErrorCode.NO_RESERVATION_SYSTEM);
         }
-        if (o1.getCourt() != o2.getCourt()) {
-            return;
+        var context = validator.newContext();
+        validateText(context, occupation);
+        var reservationType = getType(occupation, systemConfig);
+        if (reservationType.isEmpty()) {
+            return rejected(ErrorCode.INVALID_RESERVATION_TYPE);
         }
-        if (!o1.getDate().isEqual(o2.getDate())) {
-            return;
+        validateStart(context, occupation, loggedInUser, systemConfig, reservationType.get());
+        validateDuration(context, occupation, loggedInUser, reservationType.get());
+        validateCourt(context, occupation, systemConfig);
+        validateUserIsActive(loggedInUser);
+        validateType(context, occupation, loggedInUser, systemConfig, reservationType.get());
+        if (isOccupied(occupation, overlaps)) {
+            return rejected(ErrorCode.OCCUPIED, occupation.getDate(), occupation.getStart(), occupation.getCourt());
         }
-        // check time overlap
-        if (getStart(o1).isBefore(getEnd(o2, systemConfig)) && getEnd(o1, systemConfig).isAfter(getStart(o2))) {
-            throw new BadRequestException(validator.messageUtil,ErrorCode.OCCUPIED,
-                    o1.getDate(), o1.getStart(), o1.getCourt());
+        return context;
+    }
+
+    /**
+     * load the occupations of all days of the given occupations with a single query
+     *
+     * @return the occupancy of all days of the occupations
+     */
+    public OccupationIndex.Occupancy loadOccupations(
+            Collection<Occupation> occupations,
+            ReservationSystemConfig systemConfig) {
+        var dates = occupations.stream()
+                .map(Occupation::getDate)
+                .filter(Objects::nonNull)
+                .sorted()
+                .toList();
+        if (dates.isEmpty()) {
+            return OccupationIndex.Occupancy.empty();
         }
+        return occupationIndex.load(systemConfig.id(), dates.getFirst(), dates.getLast(), systemConfig);
     }
 
-    private void validateDuration(Occupation occupation, UserEntity loggedInUser, SystemConfigReservationType type) {
+    private ValidationContext rejected(ErrorCode code, Object... args) {
+        var context = validator.newContext();
+        context.addViolation(code, args);
+        return context;
+    }
+
+    private boolean isOccupied(Occupation occupation, Predicate<Occupation> overlaps) {
+        return occupation.getDate() != null
+                && occupation.getStart() != null
+                && overlaps.test(occupation);
+    }
+
+    private void validateDuration(
+            ValidationContext context,
+            Occupation occupation,
+            UserEntity loggedInUser,
+            SystemConfigReservationType type) {
         if (occupation.getDuration() < 1) {
-            validator.addFieldErrorMessage("duration", ErrorCode.DURATION_TOO_SMALL);
+            context.addFieldErrorMessage("duration", ErrorCode.DURATION_TOO_SMALL);
         }
 
         if (type.maxDuration() > 0 && occupation.getDuration() > type.maxDuration()) {
-            validator.addFieldErrorMessage("duration", ErrorCode.DURATION_TOO_LONG,
+            context.addFieldErrorMessage("duration", ErrorCode.DURATION_TOO_LONG,
                     loggedInUser.getName(), occupation.getDuration());
         }
     }
 
-    private void validateCourt(Occupation occupation, ReservationSystemConfig systemConfig) {
+    private void validateCourt(ValidationContext context, Occupation occupation, ReservationSystemConfig systemConfig) {
         if (occupation.getCourt() < 1) {
-            validator.addFieldErrorMessage("court", ErrorCode.COURT_TOO_SMALL, occupation);
+            context.addFieldErrorMessage("court", ErrorCode.COURT_TOO_SMALL, occupation);
         }
         if (occupation.getCourt() > systemConfig.courts().size()) {
-            validator.addFieldErrorMessage("court", ErrorCode.COURT_TOO_BIG,
+            context.addFieldErrorMessage("court", ErrorCode.COURT_TOO_BIG,
                     occupation, systemConfig.courts().size());
         }
     }
 
     private void validateType(
+            ValidationContext context,
             Occupation occupation,
             UserEntity loggedInUser,
             ReservationSystemConfig systemConfig,
             SystemConfigReservationType type) {
         if (!type.roles().contains(loggedInUser.getRole())) {
-            validator.addFieldErrorMessage("type", ErrorCode.USER_CANNOT_ADD_TYPE,
+            context.addFieldErrorMessage("type", ErrorCode.USER_CANNOT_ADD_TYPE,
                     loggedInUser.getName(), getTypeName(occupation.getType(), systemConfig.types()));
         }
     }
@@ -128,24 +185,18 @@ public class OccupationValidator {
         }
     }
 
-    private SystemConfigReservationType getType(Occupation occupation, ReservationSystemConfig systemConfig) {
+    private Optional<SystemConfigReservationType> getType(Occupation occupation, ReservationSystemConfig systemConfig) {
         return systemConfig.types().stream()
                 .filter(type -> type.type() == occupation.getType())
-                .findAny()
-                .orElseThrow(() -> new BadRequestException(validator.messageUtil,ErrorCode.INVALID_RESERVATION_TYPE));
-    }
-
-    private void validateSystemConfigId(Occupation occupation) {
-        if (occupation.getSystemConfigId() <= 0) {
-            throw new BadRequestException(validator.messageUtil,ErrorCode.NO_RESERVATION_SYSTEM);
-        }
+                .findAny();
     }
 
-    private void validateText(Occupation occupation) {
-        validator.checkNotEmpty("text", occupation.getText());
+    private void validateText(ValidationContext context, Occupation occupation) {
+        context.checkNotEmpty("text", occupation.getText());
     }
 
     private void validateStart(
+            ValidationContext context,
             Occupation occupation,
             UserEntity loggedInUser,
             ReservationSystemConfig systemConfig,
@@ -153,41 +204,41 @@ public class OccupationValidator {
 
         // validate start date and time
         LocalDate date = occupation.getDate();
-        if (validator.checkNotEmpty("date", date)) {
+        if (context.checkNotEmpty("date", date)) {
             if (type.forbiddenDaysOfWeek().contains(date.getDayOfWeek())) {
-                validator.addFieldErrorMessage("date", ErrorCode.DAY_OF_WEEK_NOT_ALLOWED);
+                context.addFieldErrorMessage("date", ErrorCode.DAY_OF_WEEK_NOT_ALLOWED);
             }
         }
 
         LocalTime start = occupation.getStart();
-        validator.checkNotEmpty("start", start);
+        context.checkNotEmpty("start", start);
 
         if (date != null && start != null) {
             if (start.getHour() < systemConfig.openingHour()) {
-                validator.addFieldErrorMessage("start", ErrorCode.START_HOUR_BEFORE_OPENING,
+                context.addFieldErrorMessage("start", ErrorCode.START_HOUR_BEFORE_OPENING,
                         start.getHour(), systemConfig.openingHour());
             }
 
             if (start.getHour() > systemConfig.closingHour()) {
-                validator.addFieldErrorMessage("start", ErrorCode.START_HOUR_AFTER_CLOSING,
+                context.addFieldErrorMessage("start", ErrorCode.START_HOUR_AFTER_CLOSING,
                         start.getHour(), systemConfig.closingHour());
             }
 
             if (start.getMinute() != 0 && start.getMinute() % systemConfig.durationUnitInMinutes() != 0) {
-                validator.addFieldErrorMessage("start", ErrorCode.START_TIME_MINUTES,
+                context.addFieldErrorMessage("start", ErrorCode.START_TIME_MINUTES,
                         start.getMinute());
             }
 
             if (!loggedInUser.getRole().equals(UserRole.ADMIN) && isOccupationInThePast(occupation)) {
-                validator.addFieldErrorMessage("date", ErrorCode.DATE_IN_THE_PAST);
+                context.addFieldErrorMessage("date", ErrorCode.DATE_IN_THE_PAST);
             }
             if (of(date, start.getHour(), start.getMinute())
                     .plusMinutes((long) occupation.getDuration() * systemConfig.durationUnitInMinutes())
                     .isAfter(of(date, systemConfig.closingHour(), 0))) {
-                validator.addFieldErrorMessage("start", ErrorCode.START_TIME_PLUS_DURATION);
+                context.addFieldErrorMessage("start", ErrorCode.START_TIME_PLUS_DURATION);
             }
             if (isOccupationTooFarInFuture(occupation, type)) {
-                validator.addFieldErrorMessage("date", ErrorCode.DATE_TOO_FAR_IN_FUTURE, type.maxDaysReservationInFuture());
+                context.addFieldErrorMessage("date", ErrorCode.DATE_TOO_FAR_IN_FUTURE, type.maxDaysReservationInFuture());
             }
         }
     }
@@ -215,22 +266,4 @@ public class OccupationValidator {
             return occupation.getStart().getHour() < LocalTime.now().getHour();
         }
     }
-
-    private LocalDateTime getStart(Occupation o) {
-        return of(o.getDate(), o.getStart().getHour(), o.getStart().getMinute());
-    }
-
-    private LocalDateTime getStart(OccupationEntity o) {
-        return of(o.getDate(), o.getStart().getHour(), o.getStart().getMinute());
-    }
-
-    private LocalDateTime getEnd(Occupation o, ReservationSystemConfig systemConfig) {
-        return of(o.getDate(), o.getStart().getHour(), o.getStart().getMinute())
-                .plusMinutes((long) o.getDuration() * systemConfig.durationUnitInMinutes());
-    }
-
-    private LocalDateTime getEnd(OccupationEntity o, ReservationSystemConfig systemConfig) {
-        return of(o.getDate(), o.getStart().getHour(), o.getStart().getMinute())
-                .plusMinutes((long) o.getDuration() * systemConfig.durationUnitInMinutes());
-    }
 }
@@ -0,0 +1,159 @@
+package de.tigges.tchreservation.reservation;
+
+import de.tigges.tchreservation.reservation.jpa.OccupationDayKey;
+import de.tigges.tchreservation.reservation.jpa.OccupationVersionRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.engine.spi.TransactionCompletionCallbacks.BeforeCompletionCallback;
+import de.tigges.tchreservation.util.TransactionalCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * version of the occupations per system config and day, used as ETag of the court plan
+ * <p>
+ * the versions are rows of the table {@code occupation_version}, so all nodes of a cluster share them. A write
+ * increments the row of every changed day in the same transaction with one upsert; the row lock orders concurrent
+ * writers of a day, and readers only see the increment together with the occupations. The version of a date range
+ * is the sum of the versions of its days, which grows with every committed write in the range. Days without a
+ * write have no row and version 0.
+ * <p>
+ * every node caches the versions of the days it has read for a short time to live, so a request with a matching
+ * ETag is answered without database access. Writes of this node invalidate their days after commit; writes of
+ * other nodes are seen after at most the time to live.
+ */
+@Component
+public class OccupationVersions {
+
+    static final int MAX_CACHE_SIZE = 10000;
+
+    private final OccupationVersionRepository occupationVersionRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionalCache<OccupationDayKey, Long> cache;
+    private final boolean postgres;
+
+    public OccupationVersions(
+            OccupationVersionRepository occupationVersionRepository,
+            EntityManager entityManager,
+            PlatformTransactionManager transactionManager,
+            @Value("${occupation.version-cache-ttl:PT2S}") Duration cacheTtl,
+            @Value("${spring.sql.init.platform:}") String platform) {
+        this.occupationVersionRepository = occupationVersionRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.cache = new TransactionalCache<>(MAX_CACHE_SIZE, cacheTtl);
+        this.postgres = "postgres".equals(platform);
+    }
+
+    /**
+     * @return the current version of the occupations of one day
+     */
+    public long getVersion(long systemConfigId, LocalDate date) {
+        return cache.get(new OccupationDayKey(systemConfigId, date), key -> load(systemConfigId, List.of(key)).get(key));
+    }
+
+    /**
+     * @return the version of all days of a date range
+     */
+    public long getVersion(long systemConfigId, LocalDate from, LocalDate to) {
+        return getVersions(systemConfigId, from, to).values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * @return the version of every day of a date range; the days which are not cached are read with one query
+     */
+    public Map<LocalDate, Long> getVersions(long systemConfigId, LocalDate from, LocalDate to) {
+        var keys = from.datesUntil(to.plusDays(1)).map(date -> new OccupationDayKey(systemConfigId, date)).toList();
+        var versions = new TreeMap<LocalDate, Long>();
+        cache.getAll(keys, missing -> load(systemConfigId, missing))
+                .forEach((key, version) -> versions.put(key.getDate(), version));
+        return versions;
+    }
+
+    /**
+     * increment the version of a day with the current transaction
+     * <p>
+     * the days of a transaction are collected and incremented by hibernate just before it commits, after the last
+     * flush of the occupations, so each day is incremented once per transaction. Occupations which are only
+     * written by the flush of the commit are included.
+     */
+    public void changed(long systemConfigId, LocalDate date) {
+        if (date == null) {
+            return;
+        }
+        var key = new OccupationDayKey(systemConfigId, date);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            if (transactionDays().add(key)) {
+                cache.invalidate(key);
+            }
+        } else {
+            transactionTemplate.executeWithoutResult(status -> increment(key));
+            cache.invalidate(key);
+        }
+    }
+
+    /**
+     * @return the version as strong ETag
+     */
+    public static String eTag(long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * helper method to read the versions of the missing days, 0 for days without a row
+     */
+    private Map<OccupationDayKey, Long> load(long systemConfigId, List<OccupationDayKey> keys) {
+        var versions = new HashMap<OccupationDayKey, Long>();
+        keys.forEach(key -> versions.put(key, 0L));
+        occupationVersionRepository.findVersions(systemConfigId, keys.getFirst().getDate(), keys.getLast().getDate())
+                .forEach(v -> versions.computeIfPresent(v.getId(), (key, version) -> v.getVersion()));
+        return versions;
+    }
+
+    /**
+     * helper method to collect the changed days of the current transaction
+     */
+    @SuppressWarnings("unchecked")
+    private Set<OccupationDayKey> transactionDays() {
+        var days = (Set<OccupationDayKey>) TransactionSynchronizationManager.getResource(this);
+        if (days == null) {
+            var keys = new LinkedHashSet<OccupationDayKey>();
+            TransactionSynchronizationManager.bindResource(this, keys);
+            entityManager.unwrap(SharedSessionContractImplementor.class).getTransactionCompletionCallbacks()
+                    .registerCallback((BeforeCompletionCallback) session -> keys.forEach(this::increment));
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(OccupationVersions.this);
+                }
+            });
+            days = keys;
+        }
+        return days;
+    }
+
+    /**
+     * helper method to create or increment the row of a day in the current transaction
+     */
+    private void increment(OccupationDayKey key) {
+        if (postgres) {
+            occupationVersionRepository.upsert(key.getSystemConfigId(), key.getDate());
+        } else {
+            occupationVersionRepository.merge(key.getSystemConfigId(), key.getDate());
+        }
+    }
+}
@@ -2,8 +2,9 @@ package de.tigges.tchreservation.reservation;
 
 import de.tigges.tchreservation.protocol.ActionType;
 import de.tigges.tchreservation.protocol.EntityType;
-import de.tigges.tchreservation.protocol.jpa.ProtocolEntity;
-import de.tigges.tchreservation.protocol.jpa.ProtocolRepository;
+import de.tigges.tchreservation.protocol.ProtocolEvent;
+import de.tigges.tchreservation.protocol.ProtocolFields;
+import de.tigges.tchreservation.protocol.ProtocolWriter;
 import de.tigges.tchreservation.reservation.jpa.OccupationEntity;
 import de.tigges.tchreservation.reservation.jpa.OccupationRepository;
 import de.tigges.tchreservation.reservation.jpa.ReservationEntity;
@@ -15,23 +16,38 @@ import de.tigges.tchreservation.user.UserUtils;
 import de.tigges.tchreservation.user.jpa.UserEntity;
 import de.tigges.tchreservation.user.model.UserRole;
 import de.tigges.tchreservation.util.exception.AuthorizationException;
+import de.tigges.tchreservation.util.exception.BadRequestException;
 import de.tigges.tchreservation.util.exception.ErrorCode;
 import de.tigges.tchreservation.util.exception.NotFoundException;
-import jakarta.annotation.Nullable;
+import jakarta.persistence.EntityManager;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tools.jackson.databind.ObjectMapper;
 
+import java.io.IOException;
 import java.time.Instant;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.function.Supplier;
 import java.util.stream.StreamSupport;
 
-import static de.tigges.tchreservation.reservation.model.RepeatType.weekly;
+import static de.tigges.tchreservation.reservation.OccupationVersions.eTag;
 
 @RestController
 @RequestMapping("/rest/reservation")
@@ -41,25 +57,26 @@ public class ReservationService {
     private final ReservationRepository reservationRepository;
     private final OccupationRepository occupationRepository;
     private final ReservationSystemConfigRepository systemConfigRepository;
-    private final ProtocolRepository protocolRepository;
+    private final ProtocolWriter protocolWriter;
     private final ReservationValidator reservationValidator;
     private final OccupationValidator occupationValidator;
     private final LoggedInUserService loggedinUserService;
-
-    private static int plusDays(@Nullable RepeatType repeatType) {
-        if (weekly.equals(repeatType)) {
-            return 7;
-        }
-        return 1;
-    }
-
-    private static LocalDate repeatUntil(Reservation reservation) {
-        var repeatUntil = reservation.getRepeatUntil();
-        return (repeatUntil != null) ? repeatUntil : reservation.getDate();
-    }
+    private final ObjectMapper objectMapper;
+    private final OccupationVersions occupationVersions;
+    private final OccupationEvents occupationEvents;
+    private final FreeSlotSearch freeSlotSearch;
+    private final BookingCoordinator bookingCoordinator;
+    private final EntityManager entityManager;
+    private final OccupationChanges occupationChanges;
+
+    /**
+     * maximum number of days returned by {@link #getOccupations(long, long, long, WebRequest, HttpServletResponse)}
+     */
+    static final int MAX_OCCUPATION_RANGE_DAYS = 62;
 
     @PostMapping("")
     @ResponseStatus(HttpStatus.CREATED)
+    @Transactional
     public @ResponseBody Reservation addReservation(@RequestBody Reservation reservation) {
         var loggedInUser = loggedinUserService.getLoggedInUser();
         var systemConfig = getSystemConfig(reservation.getSystemConfigId());
@@ -71,17 +88,21 @@ public class ReservationService {
             createOccupations(reservation);
         }
 
+        bookingCoordinator.lock(reservation.getOccupations());
         reservationValidator.validateOccupations(reservation, loggedInUser, systemConfig);
 
         var savedReservation = reservationRepository.save(ReservationMapper.map(reservation));
-        protocolRepository.save(new ProtocolEntity(savedReservation, ActionType.CREATE, loggedInUser));
+        protocolWriter.write(savedReservation, ActionType.CREATE, loggedInUser);
 
-        reservation.getOccupations().forEach(o -> {
-            OccupationEntity occupationEntity = OccupationMapper.map(o);
-            occupationEntity.setReservation(savedReservation);
-            OccupationEntity saveOccupation = saveOccupation(occupationEntity, loggedInUser);
-            o.setId(saveOccupation.getId());
-        });
+        var occupationEntities = reservation.getOccupations().stream()
+                .map(OccupationMapper::map)
+                .toList();
+        occupationEntities.forEach(o -> o.setReservation(savedReservation));
+        var savedOccupations = saveOccupations(occupationEntities, loggedInUser);
+        flushOccupations(reservation.getOccupations());
+        for (int i = 0; i < savedOccupations.size(); i++) {
+            reservation.getOccupations().get(i).setId(savedOccupations.get(i).getId());
+        }
         var r = ReservationMapper.map(savedReservation);
         r.getOccupations().addAll(reservation.getOccupations());
         return r;
@@ -98,6 +119,16 @@ public class ReservationService {
         return reservation;
     }
 
+    @PostMapping("/conflicts")
+    public @ResponseBody List<OccupationConflict> getConflicts(@RequestBody Reservation reservation) {
+        if (reservation.getOccupations().isEmpty()) {
+            createOccupations(reservation);
+        }
+        var loggedInUser = loggedinUserService.getLoggedInUser();
+        var systemConfig = getSystemConfig(reservation.getSystemConfigId());
+        return reservationValidator.checkOccupations(reservation, loggedInUser, systemConfig);
+    }
+
     @PutMapping("/occupation")
     @Transactional
     public @ResponseBody Occupation updateOccupation(@RequestBody Occupation occupation) {
@@ -108,13 +139,16 @@ public class ReservationService {
         var loggedInUser = loggedinUserService.getLoggedInUser();
         var systemConfig = getSystemConfig(occupation.getSystemConfigId());
 
+        bookingCoordinator.lock(List.of(occupation));
         occupationValidator.validateOccupation(occupation, loggedInUser, systemConfig);
 
         var occupationEntity = OccupationMapper.map(occupation);
 
         occupationEntity.setReservation(dbOccupation.getReservation());
+        occupationVersions.changed(dbOccupation.getSystemConfigId(), dbOccupation.getDate());
         OccupationEntity savedOccupation = occupationRepository.save(occupationEntity);
-        protocolRepository.save(new ProtocolEntity(savedOccupation, dbOccupation, loggedInUser));
+        protocolWriter.write(savedOccupation, dbOccupation, loggedInUser);
+        flushOccupations(List.of(occupation));
 
         return OccupationMapper.map(savedOccupation);
     }
@@ -130,25 +164,98 @@ public class ReservationService {
         var systemConfig = getSystemConfig(reservation.getSystemConfigId());
         reservationValidator.validateReservation(reservation, loggedInUser, systemConfig);
 
+        bookingCoordinator.lock(reservation.getOccupations());
+        reservationValidator.validateOccupations(reservation, loggedInUser, systemConfig);
+
         var savedReservation = reservationRepository.save(ReservationMapper.map(reservation));
-        protocolRepository.save(new ProtocolEntity(savedReservation, dbReservation, loggedInUser));
+        protocolWriter.write(savedReservation, dbReservation, loggedInUser);
         var response = ReservationMapper.map(savedReservation);
 
         var dbOccupations = occupationRepository.findByReservationId(reservation.getId());
 
         reservation.getOccupations().forEach(occupation -> {
             OccupationEntity dbOccupation = StreamSupport.stream(dbOccupations.spliterator(), false)
-                    .filter(o -> occupation.getId() == o.getId()).findAny()
+                    .filter(o -> Objects.equals(occupation.getId(), o.getId())).findAny()
                     .orElseThrow(notFoundException(EntityType.OCCUPATION, occupation.getId()));
             occupation.setReservation(response);
+            occupationVersions.changed(dbOccupation.getSystemConfigId(), dbOccupation.getDate());
             var savedOccupation = occupationRepository.save(OccupationMapper.map(occupation));
-            protocolRepository.save(new ProtocolEntity(savedOccupation, dbOccupation, loggedInUser));
+            protocolWriter.write(savedOccupation, dbOccupation, loggedInUser);
             response.getOccupations().add(OccupationMapper.map(savedOccupation));
         });
+        flushOccupations(reservation.getOccupations());
 
         return response;
     }
 
+    /**
+     * change text, start, duration or courts of all occupations of a series from a date on
+     * <p>
+     * the changed occupations are validated with one range check and written with one update statement;
+     * one protocol entry of the reservation summarizes the change. The reservation itself is changed as well if
+     * the change starts with its first date.
+     */
+    @PutMapping("/{id}/series")
+    @Transactional
+    public @ResponseBody Reservation updateSeries(@PathVariable long id, @RequestBody SeriesChange change) {
+        var reservationEntity = reservationRepository.findById(id)
+                .orElseThrow(notFoundException(EntityType.RESERVATION, id));
+        var loggedInUser = verifyCanDelete(reservationEntity.getUser().getId());
+        var systemConfig = getSystemConfig(reservationEntity.getSystemConfigId());
+
+        var occupations = change.from() == null
+                ? List.<Occupation>of()
+                : occupationRepository.findByReservationIdAndDateGreaterThanEqualOrderByDateAscStartAsc(id, change.from())
+                .stream()
+                .map(OccupationMapper::map)
+                .toList();
+        reservationValidator.validateSeriesChange(change, occupations, systemConfig);
+
+        var response = ReservationMapper.map(reservationEntity);
+        if (change.isEmpty() || occupations.isEmpty()) {
+            response.getOccupations().addAll(occupations);
+            return response;
+        }
+        var oldFields = seriesFields(occupations.getFirst());
+        occupations.forEach(change::apply);
+        response.getOccupations().addAll(occupations);
+
+        bookingCoordinator.lock(occupations);
+        reservationValidator.validateOccupations(response, loggedInUser, systemConfig);
+
+        if (!change.from().isAfter(reservationEntity.getDate())) {
+            var first = occupations.getFirst();
+            reservationEntity.setText(first.getText());
+            reservationEntity.setStart(first.getStart());
+            reservationEntity.setDuration(first.getDuration());
+            if (change.courts() != null) {
+                reservationEntity.setCourts(response.toCourts(change.courtsAsArray()));
+            }
+            response = ReservationMapper.map(reservationRepository.save(reservationEntity));
+            response.getOccupations().addAll(occupations);
+        }
+
+        var courts = change.courtsAsArray();
+        writeOccupations(() -> occupationRepository.updateSeries(id, change.from(), change.text(), change.start(),
+                change.duration(),
+                courts.length > 0 ? courts[0] : null,
+                courts.length > 0 ? courts[courts.length - 1] : null), occupations);
+
+        var fields = seriesFields(occupations.getFirst());
+        var changedFields = ProtocolFields.changed(oldFields, fields);
+        fields.keySet().retainAll(changedFields.keySet());
+        fields.put("from", change.from().toString());
+        fields.put("occupations", Integer.toString(occupations.size()));
+        protocolWriter.write(new ProtocolEvent(LocalDateTime.now(), EntityType.RESERVATION, id, ActionType.MODIFY,
+                fields, changedFields, loggedInUser));
+        occupations.forEach(o -> {
+            var occupation = OccupationMapper.map(o);
+            occupation.setReservation(reservationEntity);
+            occupationChanges.modified(occupation);
+        });
+        return response;
+    }
+
     @DeleteMapping("/occupation/{id}")
     @ResponseStatus(HttpStatus.OK)
     public void deleteOccupation(@PathVariable long id) {
@@ -157,16 +264,41 @@ public class ReservationService {
 
         var loggedInUser = verifyCanDelete(occupation.getReservation().getUser().getId());
 
-        protocolRepository.save(new ProtocolEntity(occupation, ActionType.DELETE, loggedInUser));
+        protocolWriter.write(occupation, ActionType.DELETE, loggedInUser);
         occupationRepository.delete(occupation);
     }
 
     @DeleteMapping("/occupations/{ids}")
     @ResponseStatus(HttpStatus.OK)
+    @Transactional
     public void deleteOccupations(@PathVariable String ids) {
-        for (String id : ids.split(",")) {
-            deleteOccupation(Long.parseLong(id));
+        deleteOccupations(Arrays.stream(ids.split(",")).map(Long::parseLong).toList());
+    }
+
+    /**
+     * delete several occupations with one query to load them, one authorization check per owner,
+     * one batch of protocol entries and one delete statement
+     */
+    @DeleteMapping("/occupations")
+    @ResponseStatus(HttpStatus.OK)
+    @Transactional
+    public void deleteOccupations(@RequestBody List<Long> ids) {
+        var distinctIds = new LinkedHashSet<>(ids);
+        var occupations = occupationRepository.findWithReservationByIdIn(distinctIds);
+        if (occupations.size() < distinctIds.size()) {
+            occupations.forEach(o -> distinctIds.remove(o.getId()));
+            throw notFoundException(EntityType.OCCUPATION, distinctIds.iterator().next()).get();
         }
+
+        var loggedInUser = loggedinUserService.getLoggedInUser();
+        occupations.stream()
+                .map(o -> o.getReservation().getUser().getId())
+                .distinct()
+                .forEach(userId -> verifyCanDelete(loggedInUser, userId));
+
+        occupations.forEach(o -> protocolWriter.write(o, ActionType.DELETE, loggedInUser));
+        occupationRepository.deleteByIdIn(distinctIds);
+        occupations.forEach(occupationChanges::removed);
     }
 
     @DeleteMapping("/{id}")
@@ -179,7 +311,7 @@ public class ReservationService {
 
         occupationRepository.findByReservationId(id).forEach(o -> this.deleteOccupation(o, loggedInUser));
 
-        protocolRepository.save(new ProtocolEntity(reservation, ActionType.DELETE, loggedInUser));
+        protocolWriter.write(reservation, ActionType.DELETE, loggedInUser);
         reservationRepository.delete(reservation);
     }
 
@@ -204,12 +336,23 @@ public class ReservationService {
         return occupationRepository.findById(id).map(OccupationMapper::map);
     }
 
+    /**
+     * get all occupations of one day
+     * <p>
+     * the response carries the version of the day as ETag; a request with a matching <code>If-None-Match</code>
+     * header is answered with 304 without reading the occupations, and without any database access while the
+     * version is cached (see {@link OccupationVersions}).
+     */
     @GetMapping("/getOccupations/{systemConfigId}/{date}")
-    public Iterable<Occupation> getOccupations(@PathVariable Long systemConfigId, @PathVariable Long date) {
-
-        var searchDate = date.equals(0L)
-                ? LocalDate.now()
-                : Instant.ofEpochMilli(date).atZone(ZoneId.systemDefault()).toLocalDate();
+    public Iterable<Occupation> getOccupations(
+            @PathVariable Long systemConfigId,
+            @PathVariable Long date,
+            WebRequest request) {
+
+        var searchDate = toLocalDate(date);
+        if (request.checkNotModified(eTag(occupationVersions.getVersion(systemConfigId, searchDate)))) {
+            return null;
+        }
 
         var occupations = occupationRepository.findBySystemConfigIdAndDate(systemConfigId, searchDate);
 
@@ -218,6 +361,105 @@ public class ReservationService {
                 .toList();
     }
 
+    /**
+     * get all occupations of one day in the compact format: every reservation and user is sent once
+     *
+     * @see #getOccupations(Long, Long, WebRequest)
+     */
+    @GetMapping(path = "/getOccupations/{systemConfigId}/{date}", params = "view=compact")
+    public CompactOccupations getCompactOccupations(
+            @PathVariable Long systemConfigId,
+            @PathVariable Long date,
+            WebRequest request) {
+
+        var searchDate = toLocalDate(date);
+        if (request.checkNotModified(eTag(occupationVersions.getVersion(systemConfigId, searchDate)))) {
+            return null;
+        }
+        return CompactOccupationsMapper.map(occupationRepository.findBySystemConfigIdAndDate(systemConfigId, searchDate));
+    }
+
+    /**
+     * get all occupations of a date range grouped by date: <code>[{"date": ..., "occupations": [...]}, ...]</code>
+     * <p>
+     * the occupations are read with a single query and written to the response while the rows are read.
+     * Days without occupations are omitted. The sum of the versions of all days is used as ETag.
+     */
+    @GetMapping("/occupations/{systemConfigId}")
+    @Transactional(readOnly = true)
+    public void getOccupations(
+            @PathVariable long systemConfigId,
+            @RequestParam long from,
+            @RequestParam long to,
+            WebRequest request,
+            HttpServletResponse response) throws IOException {
+
+        var fromDate = toLocalDate(from);
+        var toDate = toLocalDate(to);
+        if (toDate.isBefore(fromDate) || ChronoUnit.DAYS.between(fromDate, toDate) >= MAX_OCCUPATION_RANGE_DAYS) {
+            throw new BadRequestException(reservationValidator.validator.messageUtil, ErrorCode.INVALID_DATE_RANGE,
+                    fromDate, toDate, MAX_OCCUPATION_RANGE_DAYS);
+        }
+
+        if (request.checkNotModified(eTag(occupationVersions.getVersion(systemConfigId, fromDate, toDate)))) {
+            return;
+        }
+
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        try (var occupations = occupationRepository
+                .streamBySystemConfigIdAndDateBetweenOrderByDateAscStartAsc(systemConfigId, fromDate, toDate);
+             var generator = objectMapper.createGenerator(response.getOutputStream())) {
+            generator.writeStartArray();
+            LocalDate currentDate = null;
+            for (var occupation : (Iterable<OccupationEntity>) occupations::iterator) {
+                if (!occupation.getDate().equals(currentDate)) {
+                    if (currentDate != null) {
+                        generator.writeEndArray();
+                        generator.writeEndObject();
+                    }
+                    currentDate = occupation.getDate();
+                    generator.writeStartObject();
+                    generator.writePOJOProperty("date", currentDate);
+                    generator.writeArrayPropertyStart("occupations");
+                }
+                generator.writePOJO(OccupationMapper.map(occupation));
+            }
+            if (currentDate != null) {
+                generator.writeEndArray();
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    /**
+     * find the earliest free slots of one day for a reservation of the given type and duration
+     *
+     * @param courts court numbers to search; all courts if omitted
+     */
+    @GetMapping("/free/{systemConfigId}")
+    public List<FreeSlot> getFreeSlots(
+            @PathVariable long systemConfigId,
+            @RequestParam long date,
+            @RequestParam int duration,
+            @RequestParam(required = false) List<Integer> courts,
+            @RequestParam(defaultValue = "0") int type) {
+        var loggedInUser = loggedinUserService.getLoggedInUser();
+        var systemConfig = getSystemConfig(systemConfigId);
+        return freeSlotSearch.findFreeSlots(toLocalDate(date), duration, courts, type, loggedInUser, systemConfig);
+    }
+
+    /**
+     * subscribe to the occupation changes of a system config as server-sent events
+     * <p>
+     * the events are named <code>create</code>, <code>modify</code> and <code>delete</code>
+     * and carry an {@link OccupationEvent}.
+     */
+    @GetMapping(path = "/stream/{systemConfigId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamOccupations(@PathVariable long systemConfigId) {
+        return occupationEvents.subscribe(systemConfigId);
+    }
+
     @GetMapping("/my")
     public Iterable<Reservation> getMyReservations() {
         var user = loggedinUserService.getLoggedInUser();
@@ -235,25 +477,77 @@ public class ReservationService {
         return systemConfigRepository.get(id);
     }
 
-    private OccupationEntity saveOccupation(OccupationEntity o, UserEntity user) {
-        var savedOccupation = occupationRepository.save(o);
-        protocolRepository.save(new ProtocolEntity(savedOccupation, ActionType.CREATE, user));
-        return savedOccupation;
+    /**
+     * helper method to convert epoch millis from the client to a date; 0 means today
+     */
+    private static LocalDate toLocalDate(long epochMilli) {
+        return epochMilli == 0L
+                ? LocalDate.now()
+                : Instant.ofEpochMilli(epochMilli).atZone(ZoneId.systemDefault()).toLocalDate();
+    }
+
+    /**
+     * save occupations and their protocol entries
+     * <p>
+     * ids are allocated from pooled sequences, so all rows are inserted with jdbc batches when the transaction is flushed.
+     */
+    private List<OccupationEntity> saveOccupations(List<OccupationEntity> occupations, UserEntity user) {
+        var savedOccupations = StreamSupport.stream(occupationRepository.saveAll(occupations).spliterator(), false)
+                .toList();
+        savedOccupations.forEach(o -> protocolWriter.write(o, ActionType.CREATE, user));
+        return savedOccupations;
+    }
+
+    /**
+     * helper method to write the pending occupations to the database
+     * <p>
+     * the database rejects overlapping occupations, e.g. written concurrently by another application node.
+     * The violation is reported as {@link ErrorCode#OCCUPIED} of the first occupation of the batch.
+     */
+    private void flushOccupations(List<Occupation> occupations) {
+        writeOccupations(entityManager::flush, occupations);
+    }
+
+    /**
+     * helper method to write occupations, reporting a violation of the overlap constraint as
+     * {@link ErrorCode#OCCUPIED}, see {@link #flushOccupations(List)}
+     */
+    private void writeOccupations(Runnable write, List<Occupation> occupations) {
+        try {
+            write.run();
+        } catch (RuntimeException e) {
+            if (!OccupationOverlapConstraint.isViolation(e) || occupations.isEmpty()) {
+                throw e;
+            }
+            var occupation = occupations.getFirst();
+            throw new BadRequestException(reservationValidator.validator.messageUtil, ErrorCode.OCCUPIED,
+                    occupation.getDate(), occupation.getStart(), occupation.getCourt());
+        }
+    }
+
+    /**
+     * helper method to take the protocol fields of a series change
+     */
+    private static Map<String, String> seriesFields(Occupation occupation) {
+        var fields = new LinkedHashMap<String, String>();
+        fields.put("text", occupation.getText());
+        fields.put("start", occupation.getStart().toString());
+        fields.put("duration", Integer.toString(occupation.getDuration()));
+        fields.put("court", Integer.toString(occupation.getCourt()));
+        fields.put("lastCourt", Integer.toString(occupation.getLastCourt()));
+        return fields;
     }
 
     private void deleteOccupation(OccupationEntity occupation, UserEntity user) {
         occupationRepository.delete(occupation);
-        protocolRepository.save(new ProtocolEntity(occupation, ActionType.DELETE, user));
+        protocolWriter.write(occupation, ActionType.DELETE, user);
     }
 
     private void createOccupations(Reservation reservation) {
-
-        var repeatUntil = repeatUntil(reservation);
-        int plusDays = plusDays(reservation.getRepeatType());
-
-        var occupationDate = reservation.getDate();
-        while (!occupationDate.isAfter(repeatUntil)) {
-            log.info("create occupation for {} until {} plus days {}", occupationDate, repeatUntil, plusDays);
+        var rule = RecurrenceRule.of(reservation);
+        log.info("create {} occupations from {} until {} every {} days",
+                rule.count(), rule.date(), rule.lastDate(), rule.intervalDays());
+        rule.dates().forEach(occupationDate -> {
             Occupation occupation = createOccupation(reservation);
             occupation.setDate(occupationDate);
 
@@ -274,9 +568,7 @@ public class ReservationService {
             if (occupation.getCourt() > 0) {
                 reservation.getOccupations().add(occupation);
             }
-
-            occupationDate = occupationDate.plusDays(plusDays);
-        }
+        });
     }
 
     private Occupation createOccupation(Reservation reservation) {
@@ -291,7 +583,10 @@ public class ReservationService {
     }
 
     private UserEntity verifyCanDelete(long userId) {
-        var loggedInUser = loggedinUserService.getLoggedInUser();
+        return verifyCanDelete(loggedinUserService.getLoggedInUser(), userId);
+    }
+
+    private UserEntity verifyCanDelete(UserEntity loggedInUser, long userId) {
         if (UserUtils.isActive(loggedInUser)
                 && (UserUtils.is(loggedInUser, userId) || UserUtils.hasRole(loggedInUser, UserRole.ADMIN, UserRole.TRAINER))) {
             return loggedInUser;
@@ -7,27 +7,91 @@ import de.tigges.tchreservation.systemconfig.jpa.ReservationTypeRepository;
 import de.tigges.tchreservation.systemconfig.jpa.SystemConfigEntity;
 import de.tigges.tchreservation.systemconfig.jpa.SystemConfigRepository;
 import de.tigges.tchreservation.util.StreamUtil;
+import de.tigges.tchreservation.util.TransactionalCache;
 import de.tigges.tchreservation.util.exception.NotFoundException;
 import de.tigges.tchreservation.util.message.MessageUtil;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
+/**
+ * read the reservation system configurations, which are cached because they are needed for every booking but
+ * change only a few times a year
+ * <p>
+ * the cache holds immutable, already mapped configurations. Changes made by the system configuration service
+ * invalidate the entries after commit. Hits and misses are published as {@code cache.gets} metrics.
+ */
 @Component
 @RequiredArgsConstructor
-public class ReservationSystemConfigRepository {
+public class ReservationSystemConfigRepository implements MeterBinder {
+
+    static final String CACHE_NAME = "systemconfig";
+    static final int MAX_CACHE_SIZE = 100;
 
     private final SystemConfigRepository repository;
     private final ReservationTypeRepository reservationTypeRepository;
     private final MessageUtil messageUtil;
 
+    private final TransactionalCache<Long, ReservationSystemConfig> cache =
+            new TransactionalCache<>(MAX_CACHE_SIZE, null);
+
     public ReservationSystemConfig get(long id) {
+        return cache.get(id, this::load);
+    }
+
+    /**
+     * remove a configuration from the cache after the current transaction has been committed
+     */
+    public void invalidate(long id) {
+        cache.invalidate(id);
+    }
+
+    /**
+     * remove all configurations from the cache after the current transaction has been committed
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("cache.gets", cache, TransactionalCache::getHitCount)
+                .tag("cache", CACHE_NAME)
+                .tag("result", "hit")
+                .description("the number of times the cached configuration was returned")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", cache, TransactionalCache::getMissCount)
+                .tag("cache", CACHE_NAME)
+                .tag("result", "miss")
+                .description("the number of times the configuration was read from the database")
+                .register(registry);
+        Gauge.builder("cache.size", cache, TransactionalCache::size)
+                .tag("cache", CACHE_NAME)
+                .description("the number of cached configurations")
+                .register(registry);
+    }
+
+    long getHitCount() {
+        return cache.getHitCount();
+    }
+
+    long getMissCount() {
+        return cache.getMissCount();
+    }
+
+    private ReservationSystemConfig load(long id) {
         return repository
                 .findById(id)
                 .map(this::addTypes)
                 .map(SystemConfigMapper::map)
+                .map(ReservationSystemConfigRepository::immutable)
                 .orElseThrow(() -> new NotFoundException(messageUtil, EntityType.SYSTEM_CONFIGURATION, id));
     }
 
@@ -40,4 +104,21 @@ public class ReservationSystemConfigRepository {
                 .ifPresent(systemConfig::setTypes);
         return systemConfig;
     }
+
+    /**
+     * helper method to copy the modifiable lists of a mapped configuration, so that it can be shared by all callers
+     */
+    private static ReservationSystemConfig immutable(ReservationSystemConfig config) {
+        return new ReservationSystemConfig(
+                config.id(),
+                config.name(),
+                config.title(),
+                List.copyOf(config.courts()),
+                config.durationUnitInMinutes(),
+                config.maxDaysReservationInFuture(),
+                config.maxDuration(),
+                config.openingHour(),
+                config.closingHour(),
+                List.copyOf(config.types()));
+    }
 }
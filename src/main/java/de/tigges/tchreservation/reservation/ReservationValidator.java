@@ -1,41 +1,88 @@
 package de.tigges.tchreservation.reservation;
 
 import de.tigges.tchreservation.util.exception.AuthorizationException;
-import de.tigges.tchreservation.util.exception.BadRequestException;
 import de.tigges.tchreservation.util.exception.ErrorCode;
+import de.tigges.tchreservation.util.exception.InvalidDataException;
+import de.tigges.tchreservation.reservation.model.Occupation;
+import de.tigges.tchreservation.reservation.model.OccupationConflict;
 import de.tigges.tchreservation.reservation.model.RepeatType;
 import de.tigges.tchreservation.reservation.model.Reservation;
 import de.tigges.tchreservation.reservation.model.ReservationSystemConfig;
+import de.tigges.tchreservation.reservation.model.SeriesChange;
 import de.tigges.tchreservation.user.jpa.UserEntity;
 import de.tigges.tchreservation.user.model.User;
+import de.tigges.tchreservation.util.validation.ValidationContext;
 import de.tigges.tchreservation.util.validation.Validator;
+import de.tigges.tchreservation.util.validation.Violation;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class ReservationValidator {
 
+    static final int PARALLEL_THRESHOLD = 50;
+
     private final OccupationValidator occupationValidator;
     public final Validator validator;
+    private final ForkJoinPool validationPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
 
     public void validateReservation(
             Reservation reservation,
             UserEntity loggedInUser,
             ReservationSystemConfig systemConfig) {
-        validator.clearErrorMessages();
+        var context = validator.newContext();
 
         validateUser(reservation, loggedInUser);
-        validator.checkNotEmpty("court", reservation.getCourts());
-        validator.checkNotEmpty("date", reservation.getDate());
-        validator.checkNotEmpty("start", reservation.getStart());
+        context.checkNotEmpty("court", reservation.getCourts());
+        context.checkNotEmpty("date", reservation.getDate());
+        context.checkNotEmpty("start", reservation.getStart());
 
-        validateCourts(reservation, systemConfig);
-        validateRepeat(reservation);
+        validateCourts(context, reservation.getCourtsAsArray(), systemConfig);
+        validateRepeat(context, reservation);
+
+        context.checkErrorMessages();
+    }
 
-        validator.checkErrorMessages();
+    /**
+     * validate the values of a series change; the changed occupations are validated by
+     * {@link #validateOccupations(Reservation, UserEntity, ReservationSystemConfig)}
+     *
+     * @param occupations occupations of the series from the first changed date on
+     */
+    public void validateSeriesChange(
+            SeriesChange change,
+            List<Occupation> occupations,
+            ReservationSystemConfig systemConfig) {
+        var context = validator.newContext();
+        context.checkNotEmpty("from", change.from());
+        if (change.text() != null) {
+            context.checkNotEmpty("text", change.text());
+        }
+        if (change.duration() != null && change.duration() < 1) {
+            context.addFieldErrorMessage("duration", ErrorCode.DURATION_TOO_SMALL);
+        }
+        if (change.courts() != null) {
+            var courts = change.courtsAsArray();
+            validateCourts(context, courts, systemConfig);
+            var adjacent = courts.length > 0 && courts[courts.length - 1] - courts[0] == courts.length - 1;
+            var oneOccupationPerDay = occupations.stream().map(Occupation::getDate).distinct().count()
+                    == occupations.size();
+            if (!adjacent || !oneOccupationPerDay) {
+                context.addFieldErrorMessage("courts", ErrorCode.SERIES_COURTS_NOT_ADJACENT);
+            }
+        }
+        context.checkErrorMessages();
     }
 
     public void validateOccupations(
@@ -43,17 +90,86 @@ public class ReservationValidator {
             UserEntity loggedInUser,
             ReservationSystemConfig systemConfig) {
 
-        validator.clearErrorMessages();
+        var errorMessages = checkOccupations(reservation, loggedInUser, systemConfig).stream()
+                .flatMap(conflict -> conflict.errorMessages().stream())
+                .toList();
+        if (!errorMessages.isEmpty()) {
+            throw new InvalidDataException(errorMessages);
+        }
+    }
+
+    /**
+     * validate all occupations of a reservation in one pass
+     * <p>
+     * the occupations of the whole date range are loaded with a single query on the calling thread. Series with at
+     * least {@value #PARALLEL_THRESHOLD} occupations are validated in parallel on a pool bounded by the number of
+     * processors; the workers only check the loaded occupancy in memory and never take a database connection. The
+     * result does not depend on the order in which the occupations are validated.
+     *
+     * @return error messages grouped by occupation date in the order of the occupations, empty if all occupations
+     * are valid
+     */
+    public List<OccupationConflict> checkOccupations(
+            Reservation reservation,
+            UserEntity loggedInUser,
+            ReservationSystemConfig systemConfig) {
+
+        var occupations = reservation.getOccupations();
+        var occupancy = occupationValidator.loadOccupations(occupations, systemConfig);
+
+        var occupationErrors = occupations.size() < PARALLEL_THRESHOLD
+                ? occupations.stream().map(o -> checkOccupation(o, loggedInUser, systemConfig, occupancy)).toList()
+                : checkInParallel(occupations, loggedInUser, systemConfig, occupancy);
+
+        var violations = new LinkedHashMap<LocalDate, List<Violation>>();
+        for (int i = 0; i < occupations.size(); i++) {
+            if (!occupationErrors.get(i).isEmpty()) {
+                violations.computeIfAbsent(occupations.get(i).getDate(), date -> new ArrayList<>())
+                        .addAll(occupationErrors.get(i));
+            }
+        }
+
+        // messages are only looked up for the conflicts
+        var context = validator.newContext();
+        return violations.entrySet().stream()
+                .map(e -> new OccupationConflict(e.getKey(), context.toErrorMessages(e.getValue())))
+                .toList();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        validationPool.shutdown();
+    }
 
-        reservation.getOccupations().forEach(occupation -> {
-            try {
-                occupationValidator.validateOccupation(occupation, loggedInUser, systemConfig);
-            } catch (BadRequestException e) {
-                validator.addErrorMessages(e.getErrorMessages());
+    private List<List<Violation>> checkInParallel(
+            List<Occupation> occupations,
+            UserEntity loggedInUser,
+            ReservationSystemConfig systemConfig,
+            OccupationIndex.Occupancy occupancy) {
+        try {
+            return validationPool.submit(() -> occupations.parallelStream()
+                    .map(o -> checkOccupation(o, loggedInUser, systemConfig, occupancy))
+                    .toList()).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
             }
-        });
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("occupation validation interrupted", e);
+        }
+    }
 
-        validator.checkErrorMessages();
+    /**
+     * @return violations of one occupation, empty if it is valid
+     */
+    private List<Violation> checkOccupation(
+            Occupation occupation,
+            UserEntity loggedInUser,
+            ReservationSystemConfig systemConfig,
+            OccupationIndex.Occupancy occupancy) {
+        return occupationValidator.checkOccupation(occupation, loggedInUser, systemConfig, occupancy).getViolations();
     }
 
     private void validateUser(Reservation reservation, UserEntity loggedInUser) {
@@ -62,24 +178,24 @@ public class ReservationValidator {
         }
     }
 
-    private void validateRepeat(Reservation reservation) {
+    private void validateRepeat(ValidationContext context, Reservation reservation) {
         if (RepeatType.daily.equals(reservation.getRepeatType())
                 || RepeatType.weekly.equals(reservation.getRepeatType())) {
             if (reservation.getRepeatUntil() == null) {
-                validator.addFieldErrorMessage("repeatUntil", ErrorCode.REPEAT_UNTIL_EMPTY);
+                context.addFieldErrorMessage("repeatUntil", ErrorCode.REPEAT_UNTIL_EMPTY);
             } else if (reservation.getRepeatUntil().isBefore(reservation.getDate())) {
-                validator.addFieldErrorMessage("repeatUntil", ErrorCode.REPEAT_UNTIL_BEFORE_START);
+                context.addFieldErrorMessage("repeatUntil", ErrorCode.REPEAT_UNTIL_BEFORE_START);
             }
         }
     }
 
-    private void validateCourts(Reservation reservation, ReservationSystemConfig systemConfig) {
-        for (int court : reservation.getCourtsAsArray()) {
+    private void validateCourts(ValidationContext context, int[] courts, ReservationSystemConfig systemConfig) {
+        for (int court : courts) {
             if (court < 1) {
-                validator.addFieldErrorMessage("court", ErrorCode.COURT_TOO_SMALL, court);
+                context.addFieldErrorMessage("court", ErrorCode.COURT_TOO_SMALL, court);
             }
             if (court > systemConfig.courts().size()) {
-                validator.addFieldErrorMessage("court", ErrorCode.COURT_TOO_BIG,
+                context.addFieldErrorMessage("court", ErrorCode.COURT_TOO_BIG,
                         court, systemConfig.courts().size());
             }
         }
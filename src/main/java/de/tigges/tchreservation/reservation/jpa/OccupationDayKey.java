@@ -0,0 +1,23 @@
+package de.tigges.tchreservation.reservation.jpa;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Embeddable
+@Getter
+@EqualsAndHashCode
+@AllArgsConstructor
+@NoArgsConstructor
+public class OccupationDayKey implements Serializable {
+    @Column(name = "system_config_id")
+    long systemConfigId;
+    @Column(name = "date")
+    LocalDate date;
+}
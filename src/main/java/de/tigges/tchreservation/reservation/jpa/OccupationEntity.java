@@ -8,15 +8,18 @@ import jakarta.persistence.*;
 
 import de.tigges.tchreservation.protocol.EntityType;
 import de.tigges.tchreservation.protocol.Protocollable;
+import de.tigges.tchreservation.reservation.OccupationChangeListener;
 import lombok.Data;
 
 @Entity
 @Table(name = "occupation")
+@EntityListeners(OccupationChangeListener.class)
 @Data
 public class OccupationEntity implements Protocollable {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "occupation_seq")
+	@SequenceGenerator(name = "occupation_seq", allocationSize = 50)
 	private Long id;
 
 	@Column(nullable = false)
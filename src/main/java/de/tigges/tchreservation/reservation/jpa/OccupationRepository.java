@@ -1,12 +1,71 @@
 package de.tigges.tchreservation.reservation.jpa;
 
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 
 import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 public interface OccupationRepository extends CrudRepository<OccupationEntity, Long> {
 
+    /**
+     * occupations of a day read with their reservations and reservation owners in one statement
+     */
+    @EntityGraph(attributePaths = {"reservation", "reservation.user"})
     Iterable<OccupationEntity> findBySystemConfigIdAndDate(long systemConfigId, LocalDate date);
 
+    @EntityGraph(attributePaths = {"reservation", "reservation.user"})
+    Iterable<OccupationEntity> findBySystemConfigIdAndDateBetween(long systemConfigId, LocalDate from, LocalDate to);
+
+    /**
+     * stream all occupations of a date range ordered by date and start; must be consumed inside a transaction
+     */
+    @EntityGraph(attributePaths = {"reservation", "reservation.user"})
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "100"))
+    Stream<OccupationEntity> streamBySystemConfigIdAndDateBetweenOrderByDateAscStartAsc(
+            long systemConfigId, LocalDate from, LocalDate to);
+
     Iterable<OccupationEntity> findByReservationId(long reservationId);
+
+    List<OccupationEntity> findByReservationIdAndDateGreaterThanEqualOrderByDateAscStartAsc(
+            long reservationId, LocalDate from);
+
+    /**
+     * load occupations together with their reservations and reservation owners
+     */
+    @Query("select o from OccupationEntity o join fetch o.reservation r join fetch r.user where o.id in :ids")
+    List<OccupationEntity> findWithReservationByIdIn(Collection<Long> ids);
+
+    /**
+     * delete with a single statement; bypasses the entity listener
+     */
+    @Modifying
+    @Query("delete from OccupationEntity o where o.id in :ids")
+    int deleteByIdIn(Collection<Long> ids);
+
+    /**
+     * change all occupations of a reservation from a date on with a single statement; null values are not changed.
+     * Bypasses the entity listener and clears the persistence context.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            update OccupationEntity o
+            set o.text = coalesce(:text, o.text),
+                o.start = coalesce(:start, o.start),
+                o.duration = coalesce(:duration, o.duration),
+                o.court = coalesce(:court, o.court),
+                o.lastCourt = coalesce(:lastCourt, o.lastCourt)
+            where o.reservation.id = :reservationId and o.date >= :from
+            """)
+    int updateSeries(long reservationId, LocalDate from, String text, LocalTime start, Integer duration,
+                     Integer court, Integer lastCourt);
 }
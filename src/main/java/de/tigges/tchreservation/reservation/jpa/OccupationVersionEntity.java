@@ -0,0 +1,24 @@
+package de.tigges.tchreservation.reservation.jpa;
+
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * number of committed changes of the occupations of one day, see
+ * {@link de.tigges.tchreservation.reservation.OccupationVersions}
+ */
+@Entity
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "occupation_version")
+public class OccupationVersionEntity {
+    @EmbeddedId
+    OccupationDayKey id;
+
+    long version;
+}
@@ -0,0 +1,40 @@
+package de.tigges.tchreservation.reservation.jpa;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface OccupationVersionRepository extends CrudRepository<OccupationVersionEntity, OccupationDayKey> {
+
+    @Query("""
+            select v from OccupationVersionEntity v
+            where v.id.systemConfigId = :systemConfigId and v.id.date between :from and :to
+            """)
+    List<OccupationVersionEntity> findVersions(long systemConfigId, LocalDate from, LocalDate to);
+
+    /**
+     * create or increment the version of a day, PostgreSQL
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            insert into occupation_version (system_config_id, date, version) values (:systemConfigId, :date, 1)
+            on conflict (system_config_id, date) do update set version = occupation_version.version + 1
+            """)
+    int upsert(long systemConfigId, LocalDate date);
+
+    /**
+     * create or increment the version of a day, H2
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            merge into occupation_version v
+            using (values (cast(:systemConfigId as bigint), cast(:date as date))) s (system_config_id, d)
+            on v.system_config_id = s.system_config_id and v.date = s.d
+            when matched then update set version = v.version + 1
+            when not matched then insert (system_config_id, date, version) values (s.system_config_id, s.d, 1)
+            """)
+    int merge(long systemConfigId, LocalDate date);
+}
@@ -0,0 +1,20 @@
+package de.tigges.tchreservation.reservation.model;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * occupation referencing its reservation by id, see {@link CompactOccupations}
+ */
+public record CompactOccupation(
+        Long id,
+        long systemConfigId,
+        String text,
+        LocalDate date,
+        LocalTime start,
+        int duration,
+        int court,
+        int lastCourt,
+        int type,
+        Long reservationId) {
+}
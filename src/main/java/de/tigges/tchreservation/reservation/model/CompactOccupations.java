@@ -0,0 +1,15 @@
+package de.tigges.tchreservation.reservation.model;
+
+import de.tigges.tchreservation.user.model.User;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * occupations with every distinct reservation and user sent only once
+ */
+public record CompactOccupations(
+        List<CompactOccupation> occupations,
+        Collection<CompactReservation> reservations,
+        Collection<User> users) {
+}
@@ -0,0 +1,42 @@
+package de.tigges.tchreservation.reservation.model;
+
+import de.tigges.tchreservation.reservation.jpa.OccupationEntity;
+import de.tigges.tchreservation.reservation.jpa.ReservationEntity;
+import de.tigges.tchreservation.user.UserMapper;
+import de.tigges.tchreservation.user.model.User;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+
+public class CompactOccupationsMapper {
+
+	private CompactOccupationsMapper() {
+		// avoid instantiation
+	}
+
+	public static CompactOccupations map(Iterable<OccupationEntity> occupationEntities) {
+		var occupations = new ArrayList<CompactOccupation>();
+		var reservations = new LinkedHashMap<Long, CompactReservation>();
+		var users = new LinkedHashMap<Long, User>();
+		for (var o : occupationEntities) {
+			var reservation = o.getReservation();
+			var reservationId = reservation == null ? null : reservation.getId();
+			occupations.add(new CompactOccupation(o.getId(), o.getSystemConfigId(), o.getText(), o.getDate(),
+					o.getStart(), o.getDuration(), o.getCourt(), o.getLastCourt(), o.getType(), reservationId));
+			if (reservation != null) {
+				reservations.computeIfAbsent(reservationId, id -> map(reservation));
+				var user = reservation.getUser();
+				if (user != null) {
+					users.computeIfAbsent(user.getId(), id -> UserMapper.map(user));
+				}
+			}
+		}
+		return new CompactOccupations(occupations, reservations.values(), users.values());
+	}
+
+	private static CompactReservation map(ReservationEntity e) {
+		return new CompactReservation(e.getId(), e.getSystemConfigId(), e.getText(), e.getDate(), e.getStart(),
+				e.getDuration(), e.getCourts(), e.getType(), e.getRepeatType(), e.getRepeatUntil(),
+				e.getUser() == null ? null : e.getUser().getId());
+	}
+}
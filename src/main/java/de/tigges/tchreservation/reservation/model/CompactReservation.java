@@ -0,0 +1,21 @@
+package de.tigges.tchreservation.reservation.model;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * reservation referencing its user by id, see {@link CompactOccupations}
+ */
+public record CompactReservation(
+        Long id,
+        long systemConfigId,
+        String text,
+        LocalDate date,
+        LocalTime start,
+        int duration,
+        String courts,
+        int type,
+        RepeatType repeatType,
+        LocalDate repeatUntil,
+        Long userId) {
+}
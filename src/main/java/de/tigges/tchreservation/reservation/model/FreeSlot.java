@@ -0,0 +1,14 @@
+package de.tigges.tchreservation.reservation.model;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * earliest start of a free period on one court
+ */
+public record FreeSlot(
+        LocalDate date,
+        LocalTime start,
+        int duration,
+        int court) {
+}
@@ -0,0 +1,11 @@
+package de.tigges.tchreservation.reservation.model;
+
+import de.tigges.tchreservation.util.exception.ErrorMessage;
+
+import java.time.LocalDate;
+import java.util.Collection;
+
+public record OccupationConflict(
+        LocalDate date,
+        Collection<ErrorMessage> errorMessages) {
+}
@@ -0,0 +1,22 @@
+package de.tigges.tchreservation.reservation.model;
+
+import de.tigges.tchreservation.protocol.ActionType;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * compact change of one occupation pushed to the court plan
+ */
+public record OccupationEvent(
+        ActionType action,
+        long id,
+        long systemConfigId,
+        LocalDate date,
+        LocalTime start,
+        int duration,
+        int court,
+        int lastCourt,
+        int type,
+        String text) {
+}
@@ -0,0 +1,37 @@
+package de.tigges.tchreservation.reservation.model;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.stream.Stream;
+
+/**
+ * dates of a reservation series: the first date, repeated daily or weekly until the last date
+ *
+ * @param repeatUntil last date of the series; null for a single date
+ */
+public record RecurrenceRule(LocalDate date, RepeatType repeatType, LocalDate repeatUntil) {
+
+    public static RecurrenceRule of(Reservation reservation) {
+        return new RecurrenceRule(reservation.getDate(), reservation.getRepeatType(), reservation.getRepeatUntil());
+    }
+
+    public int intervalDays() {
+        return RepeatType.weekly.equals(repeatType) ? 7 : 1;
+    }
+
+    public LocalDate lastDate() {
+        return repeatUntil != null ? repeatUntil : date;
+    }
+
+    /**
+     * @return number of dates of the series
+     */
+    public long count() {
+        return lastDate().isBefore(date) ? 0 : ChronoUnit.DAYS.between(date, lastDate()) / intervalDays() + 1;
+    }
+
+    public Stream<LocalDate> dates() {
+        var last = lastDate();
+        return Stream.iterate(date, day -> !day.isAfter(last), day -> day.plusDays(intervalDays()));
+    }
+}
@@ -0,0 +1,50 @@
+package de.tigges.tchreservation.reservation.model;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Arrays;
+
+/**
+ * change of all occupations of a reservation series from a date on; null values are not changed
+ *
+ * @param from   first date to change
+ * @param courts adjacent courts separated by blanks, as {@link Reservation#getCourts()}
+ */
+public record SeriesChange(
+        LocalDate from,
+        String text,
+        LocalTime start,
+        Integer duration,
+        String courts) {
+
+    public boolean isEmpty() {
+        return text == null && start == null && duration == null && courts == null;
+    }
+
+    public int[] courtsAsArray() {
+        return courts == null || courts.isBlank()
+                ? new int[0]
+                : Arrays.stream(courts.trim().split(" +")).mapToInt(Integer::parseInt).sorted().toArray();
+    }
+
+    /**
+     * apply the change to one occupation
+     */
+    public Occupation apply(Occupation occupation) {
+        if (text != null) {
+            occupation.setText(text);
+        }
+        if (start != null) {
+            occupation.setStart(start);
+        }
+        if (duration != null) {
+            occupation.setDuration(duration);
+        }
+        var newCourts = courtsAsArray();
+        if (newCourts.length > 0) {
+            occupation.setCourt(newCourts[0]);
+            occupation.setLastCourt(newCourts[newCourts.length - 1]);
+        }
+        return occupation;
+    }
+}
@@ -4,8 +4,8 @@ import de.tigges.tchreservation.util.exception.ExistsException;
 import de.tigges.tchreservation.util.exception.NotFoundException;
 import de.tigges.tchreservation.protocol.ActionType;
 import de.tigges.tchreservation.protocol.EntityType;
-import de.tigges.tchreservation.protocol.jpa.ProtocolEntity;
-import de.tigges.tchreservation.protocol.jpa.ProtocolRepository;
+import de.tigges.tchreservation.protocol.ProtocolWriter;
+import de.tigges.tchreservation.reservation.ReservationSystemConfigRepository;
 import de.tigges.tchreservation.reservation.model.ReservationSystemConfig;
 import de.tigges.tchreservation.reservation.model.SystemConfigReservationType;
 import de.tigges.tchreservation.systemconfig.jpa.ReservationTypeMapper;
@@ -35,8 +35,9 @@ public class SystemConfigService {
     private final SystemConfigRepository systemConfigRepository;
     private final ReservationTypeRepository reservationTypeRepository;
     private final SystemConfigValidator systemConfigValidator;
-    private final ProtocolRepository protocolRepository;
+    private final ProtocolWriter protocolWriter;
     private final LoggedInUserService loggedinUserService;
+    private final ReservationSystemConfigRepository reservationSystemConfigRepository;
 
     @GetMapping("/getone/{id}")
     Optional<ReservationSystemConfig> getOne(@PathVariable Long id) {
@@ -64,8 +65,9 @@ public class SystemConfigService {
         });
         systemConfigValidator.validate(config, loggedInUser);
         var entity = systemConfigRepository.save(SystemConfigMapper.map(config,true));
-        protocolRepository.save(new ProtocolEntity(entity, ActionType.CREATE, loggedInUser));
+        protocolWriter.write(entity, ActionType.CREATE, loggedInUser);
         insertTypes(loggedInUser, config.types(), entity);
+        reservationSystemConfigRepository.invalidate(entity.getId());
         return SystemConfigMapper.map(entity);
     }
 
@@ -77,9 +79,10 @@ public class SystemConfigService {
         systemConfigValidator.validate(config, loggedInUser);
         var entity = SystemConfigMapper.map(config,false);
         var savedEntity = systemConfigRepository.save(SystemConfigMapper.map(config,false));
-        protocolRepository.save(new ProtocolEntity(savedEntity, entity, loggedInUser));
+        protocolWriter.write(savedEntity, entity, loggedInUser);
         reservationTypeRepository.deleteBySystemConfigId(config.id());
         insertTypes(loggedInUser, config.types(), savedEntity);
+        reservationSystemConfigRepository.invalidate(config.id());
         return SystemConfigMapper.map(savedEntity);
     }
 
@@ -89,8 +92,9 @@ public class SystemConfigService {
         var loggedInUser = loggedinUserService.verifyHasRole(UserRole.ADMIN);
         var entity = systemConfigRepository.findById(id).orElseThrow(notFoundException(id));
         reservationTypeRepository.deleteBySystemConfigId(id);
-        protocolRepository.save(new ProtocolEntity(entity, ActionType.DELETE, loggedInUser));
+        protocolWriter.write(entity, ActionType.DELETE, loggedInUser);
         systemConfigRepository.delete(entity);
+        reservationSystemConfigRepository.invalidate(id);
         return SystemConfigMapper.map(entity);
     }
 
@@ -120,7 +124,7 @@ public class SystemConfigService {
         entity.setId(null);
         entity.setSystemConfig(systemConfig);
         reservationTypeRepository.save(entity);
-        protocolRepository.save(new ProtocolEntity(entity, ActionType.CREATE, loggedInUser));
+        protocolWriter.write(entity, ActionType.CREATE, loggedInUser);
     }
 
     private Supplier<NotFoundException> notFoundException(long id) {
@@ -9,6 +9,7 @@ import de.tigges.tchreservation.user.UserUtils;
 import de.tigges.tchreservation.user.jpa.UserEntity;
 import de.tigges.tchreservation.user.model.ActivationStatus;
 import de.tigges.tchreservation.user.model.UserRole;
+import de.tigges.tchreservation.util.validation.ValidationContext;
 import de.tigges.tchreservation.util.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
@@ -25,25 +26,25 @@ public class SystemConfigValidator {
     public final Validator validator;
 
     public void validate(ReservationSystemConfig config, UserEntity loggedInUser) {
-        validator.clearErrorMessages();
+        var context = validator.newContext();
         checkConfigId(config);
         checkUser(loggedInUser);
-        checkString("name", config.name());
-        checkCourts(config);
-        validator.checkInt("durationUnitInMinutes", config.durationUnitInMinutes(), 30, 60);
-        validator.checkInt("maxDaysReservationInFuture", config.maxDaysReservationInFuture(), 1, 365);
-        validator.checkInt("maxDuration", config.maxDuration(), 1, 20);
-        checkOpeningAndClosingHour(config);
-        checkTypes(config);
-        validator.checkErrorMessages();
+        checkString(context, "name", config.name());
+        checkCourts(context, config);
+        context.checkInt("durationUnitInMinutes", config.durationUnitInMinutes(), 30, 60);
+        context.checkInt("maxDaysReservationInFuture", config.maxDaysReservationInFuture(), 1, 365);
+        context.checkInt("maxDuration", config.maxDuration(), 1, 20);
+        checkOpeningAndClosingHour(context, config);
+        checkTypes(context, config);
+        context.checkErrorMessages();
     }
 
-    private void checkCourts(ReservationSystemConfig config) {
-        if (validator.checkNotEmpty("courts", config.courts())) {
+    private void checkCourts(ValidationContext context, ReservationSystemConfig config) {
+        if (context.checkNotEmpty("courts", config.courts())) {
             if (config.courts().size() > MAX_COURTS) {
-                validator.addFieldErrorMessage("courts", ErrorCode.TOO_MANY_COURTS);
+                context.addFieldErrorMessage("courts", ErrorCode.TOO_MANY_COURTS);
             }
-            config.courts().forEach(court -> checkString("court", court));
+            config.courts().forEach(court -> checkString(context, "court", court));
         }
     }
 
@@ -63,28 +64,28 @@ public class SystemConfigValidator {
         }
     }
 
-    private void checkOpeningAndClosingHour(ReservationSystemConfig config) {
-        validator.checkInt("openingHour", config.openingHour(), 0, 24);
-        validator.checkInt("closingHour", config.closingHour(), 0, 24);
+    private void checkOpeningAndClosingHour(ValidationContext context, ReservationSystemConfig config) {
+        context.checkInt("openingHour", config.openingHour(), 0, 24);
+        context.checkInt("closingHour", config.closingHour(), 0, 24);
         if (config.openingHour() >= config.closingHour()) {
-            validator.addFieldErrorMessage("openingHour", ErrorCode.OPENING_HOUR_AFTER_CLOSING_HOUR);
+            context.addFieldErrorMessage("openingHour", ErrorCode.OPENING_HOUR_AFTER_CLOSING_HOUR);
         }
     }
 
-    private void checkTypes(ReservationSystemConfig config) {
+    private void checkTypes(ValidationContext context, ReservationSystemConfig config) {
         if (ObjectUtils.isEmpty(config.types())) {
-            validator.addFieldErrorMessage("reservationTypes", ErrorCode.NO_RESERVATION_TYPES);
+            context.addFieldErrorMessage("reservationTypes", ErrorCode.NO_RESERVATION_TYPES);
         } else {
-            config.types().forEach(this::checkType);
+            config.types().forEach(type -> checkType(context, type));
         }
     }
 
-    private void checkType(SystemConfigReservationType reservationType) {
-        validator.checkInt("reservationtype.type", reservationType.type(), 0, 20);
-        checkString("reservationTypes", reservationType.name());
+    private void checkType(ValidationContext context, SystemConfigReservationType reservationType) {
+        context.checkInt("reservationtype.type", reservationType.type(), 0, 20);
+        checkString(context, "reservationTypes", reservationType.name());
     }
 
-    private void checkString(String field, String value) {
-        validator.checkString(field, value, MIN_STRING_LENGTH, MAX_STRING_LENGTH);
+    private void checkString(ValidationContext context, String field, String value) {
+        context.checkString(field, value, MIN_STRING_LENGTH, MAX_STRING_LENGTH);
     }
 }
@@ -5,26 +5,79 @@ import de.tigges.tchreservation.util.exception.ErrorCode;
 import de.tigges.tchreservation.user.jpa.UserEntity;
 import de.tigges.tchreservation.user.jpa.UserRepository;
 import de.tigges.tchreservation.user.model.UserRole;
+import de.tigges.tchreservation.util.TransactionUtil;
+import de.tigges.tchreservation.util.TransactionalCache;
 import de.tigges.tchreservation.util.validation.Validator;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.AnonymousAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * resolve the user entity of the current principal
+ * <p>
+ * the user is read once per request and kept in a short living, bounded cache keyed by the principal name. Every write of a
+ * user invalidates the cache after commit (see {@link UserChangeListener}), so locking a user takes effect
+ * immediately. Callers always get a detached copy of the entity, whether it has just been read or comes from
+ * the cache, so the user behaves the same way when it is assigned to another entity.
+ */
 @Component
-@RequiredArgsConstructor
 public class LoggedInUserService {
 
+    static final String REQUEST_ATTRIBUTE = LoggedInUserService.class.getName() + ".user";
+    static final int MAX_CACHE_SIZE = 1000;
+
     private final UserRepository userRepository;
     private final Validator validator;
 
+    private final TransactionalCache<String, UserEntity> cache;
+
+    public LoggedInUserService(
+            UserRepository userRepository,
+            Validator validator,
+            @Value("${login.user-cache-ttl:PT30S}") Duration cacheTtl) {
+        this.userRepository = userRepository;
+        this.validator = validator;
+        this.cache = new TransactionalCache<>(MAX_CACHE_SIZE, cacheTtl);
+    }
+
     public UserEntity getLoggedInUser() {
         var authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication == null || authentication instanceof AnonymousAuthenticationToken) {
             return UserUtils.anonymous();
         }
         var name = authentication.getName();
-        return userRepository.findByNameOrEmail(name, name).orElse(UserUtils.anonymous());
+        var requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (requestAttributes != null
+                && requestAttributes.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) instanceof RequestUser user
+                && user.name().equals(name)) {
+            return user.user();
+        }
+        var user = findUser(name);
+        if (requestAttributes != null) {
+            requestAttributes.setAttribute(REQUEST_ATTRIBUTE, new RequestUser(name, user), RequestAttributes.SCOPE_REQUEST);
+        }
+        return user;
+    }
+
+    /**
+     * remove a user from the cache after the current transaction has been committed
+     */
+    public void invalidate(UserEntity user) {
+        cache.invalidateIf((name, cached) -> Objects.equals(cached.getId(), user.getId())
+                || name.equals(user.getName())
+                || name.equals(user.getEmail()));
+        TransactionUtil.afterCommit(() -> {
+            var requestAttributes = RequestContextHolder.getRequestAttributes();
+            if (requestAttributes != null) {
+                requestAttributes.removeAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+            }
+        });
     }
 
     public UserEntity verifyIsLoggedIn() {
@@ -51,4 +104,15 @@ public class LoggedInUserService {
         }
         throw new AuthorizationException(validator.messageUtil,ErrorCode.USER_NOT_AUTHORIZED);
     }
+
+    /**
+     * helper method to read the user from the cache or the database; unknown principals are not cached
+     */
+    private UserEntity findUser(String name) {
+        var user = cache.get(name, n -> userRepository.findByNameOrEmail(n, n).map(UserEntity::new).orElse(null));
+        return user != null ? new UserEntity(user) : UserUtils.anonymous();
+    }
+
+    private record RequestUser(String name, UserEntity user) {
+    }
 }
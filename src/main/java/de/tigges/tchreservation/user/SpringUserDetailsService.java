@@ -3,7 +3,10 @@ package de.tigges.tchreservation.user;
 import de.tigges.tchreservation.user.jpa.UserEntity;
 import de.tigges.tchreservation.user.jpa.UserRepository;
 import de.tigges.tchreservation.user.model.ActivationStatus;
-import lombok.RequiredArgsConstructor;
+import de.tigges.tchreservation.util.TransactionalCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -11,21 +14,91 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
 import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
 
+/**
+ * load the user details for form login and remember-me
+ * <p>
+ * the details are kept in a bounded cache with a time to live, so that many logins and remember-me restores at
+ * the same time do not all hit the user table. Every write of a user invalidates the cache after commit (see
+ * {@link UserChangeListener}). The load time is published as {@code authentication.user.load} timer.
+ */
 @Component
-@RequiredArgsConstructor
 public class SpringUserDetailsService implements UserDetailsService {
 
+    static final String TIMER_NAME = "authentication.user.load";
+    static final int MAX_CACHE_SIZE = 1000;
+
     private final UserRepository userRepository;
+    private final TransactionalCache<String, CachedUserDetails> cache;
+    // unknown users are not cached, so there is no hit without a user
+    private final Timer hitFound;
+    private final Timer missFound;
+    private final Timer missUnknown;
+
+    public SpringUserDetailsService(
+            UserRepository userRepository,
+            MeterRegistry meterRegistry,
+            @Value("${login.user-details-cache-ttl:PT5M}") Duration cacheTtl) {
+        this.userRepository = userRepository;
+        this.cache = new TransactionalCache<>(MAX_CACHE_SIZE, cacheTtl);
+        this.hitFound = timer(meterRegistry, "hit", "found");
+        this.missFound = timer(meterRegistry, "miss", "found");
+        this.missUnknown = timer(meterRegistry, "miss", "unknown");
+    }
 
     @Override
     public UserDetails loadUserByUsername(String userName) throws UsernameNotFoundException {
-        return userRepository
-                .findByNameOrEmail(userName, userName)
-                .map(userEntity -> map(userEntity, userName))
-                .orElseThrow(() -> new UsernameNotFoundException("user '%s' not found".formatted(userName)));
+        var start = System.nanoTime();
+        var cached = cache.getIfPresent(userName);
+        if (cached != null) {
+            record(start, hitFound);
+            return copy(cached.userDetails());
+        }
+        var loaded = cache.load(userName, name -> userRepository.findByNameOrEmail(name, name)
+                .map(userEntity -> new CachedUserDetails(userEntity.getId(), map(userEntity, name)))
+                .orElse(null));
+        if (loaded == null) {
+            record(start, missUnknown);
+            throw new UsernameNotFoundException("user '%s' not found".formatted(userName));
+        }
+        record(start, missFound);
+        return copy(loaded.userDetails());
+    }
+
+    /**
+     * remove a user from the cache after the current transaction has been committed
+     */
+    public void invalidate(UserEntity user) {
+        cache.invalidateIf((userName, cached) -> Objects.equals(cached.userId(), user.getId())
+                || userName.equals(user.getName())
+                || userName.equals(user.getEmail()));
+    }
+
+    int getCacheSize() {
+        return cache.size();
+    }
+
+    private static void record(long start, Timer timer) {
+        timer.record(Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    private static Timer timer(MeterRegistry meterRegistry, String cacheResult, String result) {
+        return Timer.builder(TIMER_NAME)
+                .description("time to load the user details for an authentication")
+                .tag("cache", cacheResult)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * helper method to hand out a copy, because spring security erases the password of the returned details
+     */
+    private static UserDetails copy(UserDetails userDetails) {
+        return org.springframework.security.core.userdetails.User.withUserDetails(userDetails).build();
     }
 
     private UserDetails map(UserEntity userEntity, String userName) {
@@ -42,4 +115,7 @@ public class SpringUserDetailsService implements UserDetailsService {
     private Collection<? extends GrantedAuthority> toAuthorities(UserEntity userEntity) {
         return List.of(new SimpleGrantedAuthority(userEntity.getRole().name()));
     }
+
+    private record CachedUserDetails(Long userId, UserDetails userDetails) {
+    }
 }
@@ -0,0 +1,27 @@
+package de.tigges.tchreservation.user;
+
+import de.tigges.tchreservation.user.jpa.UserEntity;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * JPA entity listener invalidating the cached users whenever a user is modified or removed, e.g. by a status,
+ * role or password change
+ * <p>
+ * the beans are looked up lazily because they depend on the entity manager factory which creates this listener
+ */
+@RequiredArgsConstructor
+public class UserChangeListener {
+
+    private final ObjectProvider<LoggedInUserService> loggedInUserService;
+    private final ObjectProvider<SpringUserDetailsService> userDetailsService;
+
+    @PostUpdate
+    @PostRemove
+    void changed(UserEntity user) {
+        loggedInUserService.getObject().invalidate(user);
+        userDetailsService.getObject().invalidate(user);
+    }
+}
@@ -2,8 +2,7 @@ package de.tigges.tchreservation.user;
 
 import de.tigges.tchreservation.protocol.ActionType;
 import de.tigges.tchreservation.protocol.EntityType;
-import de.tigges.tchreservation.protocol.jpa.ProtocolEntity;
-import de.tigges.tchreservation.protocol.jpa.ProtocolRepository;
+import de.tigges.tchreservation.protocol.ProtocolWriter;
 import de.tigges.tchreservation.user.jpa.UserDeviceEntity;
 import de.tigges.tchreservation.user.jpa.UserDeviceRepository;
 import de.tigges.tchreservation.user.jpa.UserEntity;
@@ -33,7 +32,7 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final UserDeviceRepository userDeviceRepository;
-    private final ProtocolRepository protocolRepository;
+    private final ProtocolWriter protocolWriter;
     private final LoggedInUserService loggedinUserService;
     private final PasswordEncoder encoder = PasswordEncoderFactories.createDelegatingPasswordEncoder();
     private final MessageUtil messageUtil;
@@ -85,11 +84,11 @@ public class UserService {
         user.setPassword(cryptedPassword);
         var savedUserEntity = userRepository.save(UserMapper.map(user));
         var savedUser = UserMapper.map(savedUserEntity);
-        protocolRepository.save(new ProtocolEntity(savedUserEntity, ActionType.CREATE, loggedInUser));
+        protocolWriter.write(savedUserEntity, ActionType.CREATE, loggedInUser);
         user.getDevices().forEach(device -> {
             device.setUser(savedUser);
             UserDeviceEntity savedDevice = userDeviceRepository.save(UserDeviceMapper.map(device));
-            protocolRepository.save(new ProtocolEntity(savedDevice, ActionType.CREATE, loggedInUser));
+            protocolWriter.write(savedDevice, ActionType.CREATE, loggedInUser);
             savedUserEntity.getDevices().add(savedDevice);
         });
         return addDevices(savedUser);
@@ -99,7 +98,7 @@ public class UserService {
     public @ResponseBody UserDevice add(@RequestBody UserDevice userDevice) {
         var loggedInUser = loggedinUserService.verifyHasRoleOrSelf(userDevice.getUser().getId(), UserRole.ADMIN);
         var savedDevice = userDeviceRepository.save(UserDeviceMapper.map(userDevice));
-        protocolRepository.save(new ProtocolEntity(savedDevice, ActionType.CREATE, loggedInUser));
+        protocolWriter.write(savedDevice, ActionType.CREATE, loggedInUser);
         return UserDeviceMapper.map(savedDevice);
     }
 
@@ -111,7 +110,7 @@ public class UserService {
         var saveUser = new UserEntity(dbUser);
         saveUser.setStatus(status);
         userRepository.save(saveUser);
-        protocolRepository.save(new ProtocolEntity(saveUser, dbUser, loggedInUser));
+        protocolWriter.write(saveUser, dbUser, loggedInUser);
     }
 
     @PutMapping("/device/setStatus/{deviceId}/{status}")
@@ -121,7 +120,7 @@ public class UserService {
                 .orElseThrow(() -> new NotFoundException(messageUtil, EntityType.USER_DEVICE, deviceId));
         device.setStatus(status);
         userDeviceRepository.save(device);
-        protocolRepository.save(new ProtocolEntity(device, ActionType.MODIFY, loggedInUser));
+        protocolWriter.write(device, ActionType.MODIFY, loggedInUser);
     }
 
     @PutMapping("")
@@ -151,7 +150,7 @@ public class UserService {
 
         var userEntity = UserMapper.map(user);
         userRepository.save(userEntity);
-        protocolRepository.save(new ProtocolEntity(userEntity, dbUser, loggedInUser));
+        protocolWriter.write(userEntity, dbUser, loggedInUser);
     }
 
     @DeleteMapping("/{userId}")
@@ -2,6 +2,7 @@ package de.tigges.tchreservation.user.jpa;
 
 import de.tigges.tchreservation.protocol.EntityType;
 import de.tigges.tchreservation.protocol.Protocollable;
+import de.tigges.tchreservation.user.UserChangeListener;
 import de.tigges.tchreservation.user.model.ActivationStatus;
 import de.tigges.tchreservation.user.model.UserRole;
 import jakarta.persistence.*;
@@ -13,6 +14,7 @@ import java.util.Map;
 import java.util.Set;
 
 @Entity
+@EntityListeners(UserChangeListener.class)
 @Table(name = "\"user\"")
 @Data
 @NoArgsConstructor
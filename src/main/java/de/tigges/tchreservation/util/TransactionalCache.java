@@ -0,0 +1,188 @@
+package de.tigges.tchreservation.util;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+/**
+ * small bounded cache for data which is read often and changed rarely
+ * <p>
+ * entries expire after the time to live. If the cache is full, the expired entries and then the least recently
+ * used entries are evicted. Invalidations take effect after the current transaction has been committed. A value
+ * loaded while the cache has been invalidated is returned, but not cached, because it may be outdated. Values are
+ * loaded outside of the lock, so a slow load does not block the readers of other keys.
+ *
+ * @param <K> key
+ * @param <V> immutable value, or a value which is copied by the caller
+ */
+public final class TransactionalCache<K, V> {
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final Map<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong generation = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param ttl time to live of an entry, null if entries do not expire
+     */
+    public TransactionalCache(int maxSize, Duration ttl) {
+        this.maxSize = maxSize;
+        // half the range, so that the expiry time can be compared across an overflow of System.nanoTime()
+        this.ttlNanos = ttl == null ? Long.MAX_VALUE / 2 : ttl.toNanos();
+    }
+
+    /**
+     * @return the cached value, or the value of the loader which is cached unless it is null
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        var value = getIfPresent(key);
+        return value != null ? value : load(key, loader);
+    }
+
+    /**
+     * @param loader loads the values of all missing keys with one call
+     * @return the values of all keys which are cached or loaded
+     */
+    public Map<K, V> getAll(Collection<K> keys, Function<? super List<K>, ? extends Map<K, V>> loader) {
+        var values = new HashMap<K, V>();
+        var missing = new ArrayList<K>();
+        for (var key : keys) {
+            var value = getIfPresent(key);
+            if (value != null) {
+                values.put(key, value);
+            } else {
+                missing.add(key);
+            }
+        }
+        if (missing.isEmpty()) {
+            return values;
+        }
+        var loadGeneration = generation.get();
+        var loaded = loader.apply(missing);
+        synchronized (entries) {
+            if (generation.get() == loadGeneration) {
+                loaded.forEach(this::put);
+            }
+        }
+        values.putAll(loaded);
+        return values;
+    }
+
+    /**
+     * @return the cached value, null if it is not cached or expired
+     */
+    public V getIfPresent(K key) {
+        synchronized (entries) {
+            var entry = entries.get(key);
+            if (entry != null && !entry.isExpired()) {
+                hits.increment();
+                return entry.value();
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * load a value and cache it unless it is null
+     */
+    public V load(K key, Function<? super K, ? extends V> loader) {
+        var loadGeneration = generation.get();
+        V value = loader.apply(key);
+        if (value == null) {
+            return null;
+        }
+        synchronized (entries) {
+            if (generation.get() == loadGeneration) {
+                put(key, value);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * remove an entry after the current transaction has been committed
+     */
+    public void invalidate(K key) {
+        TransactionUtil.afterCommit(() -> {
+            synchronized (entries) {
+                generation.incrementAndGet();
+                entries.remove(key);
+            }
+        });
+    }
+
+    /**
+     * remove all matching entries after the current transaction has been committed
+     */
+    public void invalidateIf(BiPredicate<? super K, ? super V> predicate) {
+        TransactionUtil.afterCommit(() -> {
+            synchronized (entries) {
+                generation.incrementAndGet();
+                entries.entrySet().removeIf(e -> predicate.test(e.getKey(), e.getValue().value()));
+            }
+        });
+    }
+
+    /**
+     * remove all entries after the current transaction has been committed
+     */
+    public void invalidateAll() {
+        invalidateIf((key, value) -> true);
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * helper method to cache a value, called with the lock held
+     */
+    private void put(K key, V value) {
+        if (!entries.containsKey(key)) {
+            evict();
+        }
+        entries.put(key, new Entry<>(value, System.nanoTime() + ttlNanos));
+    }
+
+    /**
+     * helper method to make room for one entry, called with the lock held
+     */
+    private void evict() {
+        if (entries.size() < maxSize) {
+            return;
+        }
+        entries.values().removeIf(Entry::isExpired);
+        var eldest = entries.keySet().iterator();
+        while (entries.size() >= maxSize && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+        }
+    }
+
+    private record Entry<V>(V value, long expiresAt) {
+        boolean isExpired() {
+            return System.nanoTime() - expiresAt > 0;
+        }
+    }
+}
@@ -34,6 +34,8 @@ public enum ErrorCode {
     DATE_IN_THE_PAST,
     START_TIME_PLUS_DURATION,
     DATE_TOO_FAR_IN_FUTURE,
+    INVALID_DATE_RANGE,
+    SERIES_COURTS_NOT_ADJACENT,
 
     NULL_NOT_ALLOWED,
     STRING_TOO_SHORT,
@@ -42,6 +44,7 @@ public enum ErrorCode {
     NUMBER_TOO_BIG,
 
     JSON_SERIALIZATION,
+    TOO_MANY_SUBSCRIBERS,
     NOT_FOUND,
     EXISTS,
 }
@@ -0,0 +1,89 @@
+package de.tigges.tchreservation.util.validation;
+
+import de.tigges.tchreservation.util.exception.ErrorCode;
+import de.tigges.tchreservation.util.exception.ErrorMessage;
+import de.tigges.tchreservation.util.exception.InvalidDataException;
+import de.tigges.tchreservation.util.message.MessageUtil;
+import org.springframework.util.ObjectUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * violations of one validation
+ * <p>
+ * a new context is created for every validation ({@link Validator#newContext()}) and passed to all checks,
+ * so concurrent validations never see the violations of each other. Not thread safe itself.
+ * <p>
+ * the checks only collect {@link Violation}s; messages are looked up and an exception is created once, when the
+ * result is reported ({@link #getErrorMessages()}, {@link #checkErrorMessages()}).
+ */
+public class ValidationContext {
+    private final MessageUtil messageUtil;
+    private final List<Violation> violations = new ArrayList<>();
+
+    ValidationContext(MessageUtil messageUtil) {
+        this.messageUtil = messageUtil;
+    }
+
+    public boolean isValid() {
+        return violations.isEmpty();
+    }
+
+    public List<Violation> getViolations() {
+        return List.copyOf(violations);
+    }
+
+    public List<ErrorMessage> getErrorMessages() {
+        return toErrorMessages(violations);
+    }
+
+    /**
+     * helper method to look up the messages of violations
+     */
+    public List<ErrorMessage> toErrorMessages(Collection<Violation> violations) {
+        return violations.stream().map(violation -> violation.toErrorMessage(messageUtil)).toList();
+    }
+
+    public void checkErrorMessages() throws InvalidDataException {
+        if (!isValid()) {
+            throw new InvalidDataException(getErrorMessages());
+        }
+    }
+
+    public void addViolation(ErrorCode code, Object... args) {
+        violations.add(new Violation(code, null, args));
+    }
+
+    public void addFieldErrorMessage(String field, ErrorCode code, Object... args) {
+        violations.add(new Violation(code, field, args));
+    }
+
+    public void checkString(String field, String value, int minLen, int maxLen) {
+        if (checkNotEmpty(field, value)) {
+            if (value.length() < minLen) {
+                addFieldErrorMessage(field, ErrorCode.STRING_TOO_SHORT, minLen);
+            } else if (value.length() > maxLen) {
+                addFieldErrorMessage(field, ErrorCode.STRING_TOO_LONG, maxLen);
+            }
+        }
+    }
+
+    public boolean checkNotEmpty(String field, Object value) {
+        if (ObjectUtils.isEmpty(value)) {
+            addFieldErrorMessage(field, ErrorCode.NULL_NOT_ALLOWED);
+            return false;
+        }
+        return true;
+    }
+
+    public void checkInt(String field, int value, int minValue, int maxValue) {
+        if (value < minValue) {
+            addFieldErrorMessage(field, ErrorCode.NUMBER_TOO_SMALL, minValue);
+        }
+        if (value > maxValue) {
+            addFieldErrorMessage(field, ErrorCode.NUMBER_TOO_BIG, maxValue);
+        }
+    }
+}
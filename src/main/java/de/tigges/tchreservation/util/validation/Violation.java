@@ -0,0 +1,18 @@
+package de.tigges.tchreservation.util.validation;
+
+import de.tigges.tchreservation.util.exception.ErrorCode;
+import de.tigges.tchreservation.util.exception.ErrorMessage;
+import de.tigges.tchreservation.util.message.MessageUtil;
+
+/**
+ * one failed check of a validation; the message is only looked up if the violation is reported
+ *
+ * @param field name of the invalid field, null if the violation does not belong to a field
+ * @param args  arguments of the message
+ */
+public record Violation(ErrorCode code, String field, Object... args) {
+
+    public ErrorMessage toErrorMessage(MessageUtil messageUtil) {
+        return new ErrorMessage(code, messageUtil.msg(code, args), field);
+    }
+}
@@ -0,0 +1,81 @@
+-- executed on every start with profile postgres, before hibernate validates the schema.
+-- all statements must be idempotent.
+-- the script is sent as one statement (see application-postgres.yml) because functions contain semicolons.
+
+-- pooled id sequences for occupation and protocol (allocation size 50)
+CREATE SEQUENCE IF NOT EXISTS occupation_seq INCREMENT BY 50;
+SELECT setval('occupation_seq', GREATEST((SELECT COALESCE(MAX(id), 0) + 50 FROM occupation), (SELECT last_value FROM occupation_seq)));
+
+CREATE SEQUENCE IF NOT EXISTS protocol_seq INCREMENT BY 50;
+SELECT setval('protocol_seq', GREATEST((SELECT COALESCE(MAX(id), 0) + 50 FROM protocol), (SELECT last_value FROM protocol_seq)));
+
+-- occupation_no_overlap: overlapping occupations of the same court are rejected by the database.
+-- period is set by a trigger because the duration unit is stored in the system config.
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+ALTER TABLE occupation ADD COLUMN IF NOT EXISTS period tsrange;
+ALTER TABLE occupation ADD COLUMN IF NOT EXISTS courts int4range
+    GENERATED ALWAYS AS (int4range(court, GREATEST(court, last_court), '[]')) STORED;
+
+CREATE OR REPLACE FUNCTION occupation_period() RETURNS trigger AS $$
+BEGIN
+    NEW.period := tsrange(NEW.date + NEW.start, NEW.date + NEW.start
+        + make_interval(mins => NEW.duration * (SELECT duration_unit_in_minutes FROM systemconfig WHERE id = NEW.system_config_id)));
+    RETURN NEW;
+END
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE TRIGGER occupation_period BEFORE INSERT OR UPDATE ON occupation
+    FOR EACH ROW EXECUTE FUNCTION occupation_period();
+
+-- let the trigger fill the period of existing rows
+UPDATE occupation SET start = start WHERE period IS NULL;
+
+-- occupations written before the constraint may already overlap, e.g. rows of several courts (last_court was
+-- not checked before). The constraint is only added if there are none; otherwise the overlapping pairs are
+-- listed in occupation_overlap_conflict, reported at startup (OccupationOverlapReport), and the next start
+-- tries again.
+CREATE TABLE IF NOT EXISTS occupation_overlap_conflict (
+    occupation_id bigint NOT NULL,
+    other_occupation_id bigint NOT NULL,
+    PRIMARY KEY (occupation_id, other_occupation_id)
+);
+
+DO $$
+DECLARE
+    conflicts bigint;
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'occupation_no_overlap') THEN
+        DELETE FROM occupation_overlap_conflict;
+        INSERT INTO occupation_overlap_conflict (occupation_id, other_occupation_id)
+            SELECT o1.id, o2.id FROM occupation o1
+            JOIN occupation o2 ON o2.system_config_id = o1.system_config_id AND o2.date = o1.date AND o2.id > o1.id
+            WHERE o1.courts && o2.courts AND o1.period && o2.period;
+        GET DIAGNOSTICS conflicts = ROW_COUNT;
+        IF conflicts = 0 THEN
+            ALTER TABLE occupation ADD CONSTRAINT occupation_no_overlap
+                EXCLUDE USING gist (system_config_id WITH =, courts WITH &&, period WITH &&);
+        ELSE
+            RAISE WARNING 'occupation_no_overlap not added, % pairs of occupations overlap (see occupation_overlap_conflict)',
+                conflicts;
+        END IF;
+    END IF;
+END
+$$;
+
+-- per-day versions of the occupations, shared by all nodes (see OccupationVersions)
+CREATE TABLE IF NOT EXISTS occupation_version (
+    system_config_id bigint NOT NULL,
+    date date NOT NULL,
+    version bigint NOT NULL,
+    PRIMARY KEY (system_config_id, date)
+);
+
+-- keyset pagination and filters of the protocol, all ordered by id
+CREATE INDEX IF NOT EXISTS protocol_entity_type_id ON protocol (entity_type, id);
+CREATE INDEX IF NOT EXISTS protocol_action_type_id ON protocol (action_type, id);
+CREATE INDEX IF NOT EXISTS protocol_user_id_id ON protocol (user_id, id);
+CREATE INDEX IF NOT EXISTS protocol_time ON protocol (time);
+
+-- history of one entity
+CREATE INDEX IF NOT EXISTS protocol_entity_type_entity_id_id ON protocol (entity_type, entity_id, id);
@@ -0,0 +1,50 @@
+package de.tigges.tchreservation;
+
+import de.tigges.tchreservation.reservation.jpa.OccupationEntity;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * occupation entities for tests
+ */
+public final class OccupationEntities {
+
+    private OccupationEntities() {
+    }
+
+    /**
+     * @return occupation of one court
+     */
+    public static OccupationEntity occupation(
+            Long id,
+            long systemConfigId,
+            LocalDate date,
+            LocalTime start,
+            int duration,
+            int court) {
+        return occupation(id, systemConfigId, date, start, duration, court, court);
+    }
+
+    /**
+     * @return occupation of the courts from <code>court</code> to <code>lastCourt</code>
+     */
+    public static OccupationEntity occupation(
+            Long id,
+            long systemConfigId,
+            LocalDate date,
+            LocalTime start,
+            int duration,
+            int court,
+            int lastCourt) {
+        var occupation = new OccupationEntity();
+        occupation.setId(id);
+        occupation.setSystemConfigId(systemConfigId);
+        occupation.setDate(date);
+        occupation.setStart(start);
+        occupation.setDuration(duration);
+        occupation.setCourt(court);
+        occupation.setLastCourt(lastCourt);
+        return occupation;
+    }
+}
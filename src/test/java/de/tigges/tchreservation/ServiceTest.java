@@ -2,6 +2,7 @@ package de.tigges.tchreservation;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers;
 import org.springframework.test.web.servlet.MockMvc;
@@ -63,7 +64,15 @@ public class ServiceTest {
         return mockMvc.perform(get(url).with(csrf()));
     }
 
+    public ResultActions performGet(String url, HttpHeaders headers) throws Exception {
+        return mockMvc.perform(get(url).headers(headers).with(csrf()));
+    }
+
     public ResultActions performDelete(String url) throws Exception {
         return mockMvc.perform(delete(url).with(csrf()));
     }
+
+    public ResultActions performDelete(String url, Object content) throws Exception {
+        return mockMvc.perform(delete(url).content(json(content)).contentType(contentTypeJson).with(csrf()));
+    }
 }
@@ -0,0 +1,212 @@
+package de.tigges.tchreservation.protocol;
+
+import de.tigges.tchreservation.ProtocolTest;
+import de.tigges.tchreservation.protocol.jpa.ProtocolEntity;
+import de.tigges.tchreservation.reservation.jpa.OccupationEntity;
+import de.tigges.tchreservation.user.jpa.UserEntity;
+import de.tigges.tchreservation.user.model.UserRole;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+
+import static de.tigges.tchreservation.OccupationEntities.occupation;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@WebAppConfiguration
+class ProtocolArchiveTest extends ProtocolTest {
+
+    static final LocalDateTime OLD = LocalDateTime.now().minusDays(400);
+    static final LocalDateTime OLDER = OLD.minusMonths(1);
+
+    @TempDir
+    static Path archiveDirectory;
+
+    @DynamicPropertySource
+    static void archiveProperties(DynamicPropertyRegistry registry) {
+        registry.add("protocol.archive.directory", () -> archiveDirectory.toString());
+        registry.add("protocol.archive.max-age", () -> "P365D");
+    }
+
+    @Autowired
+    private ProtocolArchive protocolArchive;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private UserEntity admin;
+    private ProtocolEntity older;
+    private ProtocolEntity old1;
+    private ProtocolEntity old2;
+    private ProtocolEntity current;
+
+    @BeforeEach
+    void setup() throws IOException {
+        protocolRepository.deleteAll();
+        userDeviceRepository.deleteAll();
+        userRepository.deleteAll();
+        FileSystemUtils.deleteRecursively(archiveDirectory);
+        admin = addUser(UserRole.ADMIN);
+        older = save(createOccupation(1), ActionType.CREATE, OLDER);
+        old1 = save(createOccupation(1), ActionType.DELETE, OLD);
+        old2 = save(createOccupation(2), ActionType.CREATE, OLD);
+        current = save(createOccupation(2), ActionType.MODIFY, LocalDateTime.now());
+    }
+
+    @Test
+    void archiveOldEntries() {
+        assertThat(protocolArchive.archive()).isEqualTo(3);
+
+        assertThat(protocolRepository.findAll()).extracting(ProtocolEntity::getId).containsExactly(current.getId());
+        assertThat(archiveDirectory.resolve("protocol-%s.ndjson.gz".formatted(YearMonth.from(OLD)))).exists();
+        assertThat(archiveDirectory.resolve("protocol-%s.idx".formatted(YearMonth.from(OLDER)))).exists();
+
+        var archived = protocolArchive.find(new ProtocolFilter(null, null, null, null, null, null), 10);
+        assertThat(archived).extracting(p -> p.id())
+                .containsExactly(old2.getId(), old1.getId(), older.getId());
+        var protocol = archived.getFirst();
+        assertThat(protocol.value()).isEqualTo(old2.getValue());
+        assertThat(protocol.userName()).isEqualTo(admin.getName());
+        assertThat(protocol.time()).isEqualTo(old2.getTime().withNano(old2.getTime().getNano() / 1000000 * 1000000));
+
+        assertThat(protocolArchive.archive()).isZero();
+        assertThat(protocolArchive.find(new ProtocolFilter(null, null, null, null, null, null), 10)).hasSize(3);
+    }
+
+    @Test
+    void findByEntity() {
+        protocolArchive.archive();
+
+        assertThat(protocolArchive.find(new ProtocolFilter(null, null, EntityType.OCCUPATION, 1L, null, null), 10))
+                .extracting(p -> p.id())
+                .containsExactly(old1.getId(), older.getId());
+        assertThat(protocolArchive.find(new ProtocolFilter(null, null, EntityType.OCCUPATION, 1L, ActionType.CREATE, null), 10))
+                .extracting(p -> p.id())
+                .containsExactly(older.getId());
+        assertThat(protocolArchive.find(new ProtocolFilter(OLDER.plusDays(1), null, null, null, null, null), 10))
+                .extracting(p -> p.id())
+                .containsExactly(old2.getId(), old1.getId());
+        assertThat(protocolArchive.find(new ProtocolFilter(null, old2.getId(), null, null, null, null), 1))
+                .extracting(p -> p.id())
+                .containsExactly(old1.getId());
+    }
+
+    @Test
+    void alreadyArchivedEntriesAreOnlyDeleted() throws IOException {
+        protocolArchive.archive();
+        // an archive run which stopped after the state file was written
+        var again = save(createOccupation(3), ActionType.CREATE, OLD);
+        Files.writeString(archiveDirectory.resolve(ProtocolArchive.STATE_FILE), Long.toString(again.getId()));
+
+        assertThat(protocolArchive.archive()).isEqualTo(1);
+        assertThat(protocolArchive.find(new ProtocolFilter(null, null, null, null, null, null), 10)).hasSize(3);
+    }
+
+    @Test
+    @WithMockUser(username = "ADMIN")
+    void serviceReadsArchive() throws Exception {
+        protocolArchive.archive();
+
+        performGet("/rest/protocol/" + OLDER.minusDays(1).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", Matchers.contains(current.getId().intValue(),
+                        old2.getId().intValue(), old1.getId().intValue(), older.getId().intValue())))
+                .andExpect(jsonPath("$[3].user.name").value(admin.getName()));
+        performGet("/rest/protocol?limit=2")
+                .andExpect(jsonPath("$[*].id", Matchers.contains(current.getId().intValue(), old2.getId().intValue())));
+        performGet("/rest/protocol?limit=2&afterId=" + old2.getId())
+                .andExpect(jsonPath("$[*].id", Matchers.contains(old1.getId().intValue(), older.getId().intValue())));
+        performGet("/rest/protocol?actionType=CREATE")
+                .andExpect(jsonPath("$[*].id", Matchers.contains(old2.getId().intValue(), older.getId().intValue())));
+
+        performGet("/rest/protocol/OCCUPATION/1")
+                .andExpect(jsonPath("$[*].id", Matchers.contains(older.getId().intValue(), old1.getId().intValue())));
+        performGet("/rest/protocol/OCCUPATION/2")
+                .andExpect(jsonPath("$[*].id", Matchers.contains(old2.getId().intValue(), current.getId().intValue())));
+
+        var lines = performGet("/rest/protocol/export")
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString().split("\\n");
+        assertThat(lines).hasSize(4);
+    }
+
+    @Test
+    @WithMockUser(username = "ADMIN")
+    void archivedEntriesStillInDatabaseAreReadOnce() throws Exception {
+        protocolArchive.archive();
+        // an archive run which stopped after the state file was written, before deleting the entries
+        for (var protocol : new ProtocolEntity[]{older, old1, old2}) {
+            jdbcTemplate.update("""
+                            insert into protocol (id, time, entity_type, entity_id, action_type, "value", "user_id")
+                            values (?, ?, ?, ?, ?, ?, ?)""",
+                    protocol.getId(), protocol.getTime(), protocol.getEntityType().ordinal(), protocol.getEntityId(),
+                    protocol.getActionType().ordinal(), protocol.getValue(), admin.getId());
+        }
+
+        performGet("/rest/protocol/" + OLDER.minusDays(1).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli())
+                .andExpect(jsonPath("$[*].id", Matchers.contains(current.getId().intValue(),
+                        old2.getId().intValue(), old1.getId().intValue(), older.getId().intValue())));
+        performGet("/rest/protocol?limit=3")
+                .andExpect(jsonPath("$[*].id", Matchers.contains(current.getId().intValue(),
+                        old2.getId().intValue(), old1.getId().intValue())));
+        performGet("/rest/protocol?limit=2&afterId=" + old2.getId())
+                .andExpect(jsonPath("$[*].id", Matchers.contains(old1.getId().intValue(), older.getId().intValue())));
+        performGet("/rest/protocol/OCCUPATION/1")
+                .andExpect(jsonPath("$[*].id", Matchers.contains(older.getId().intValue(), old1.getId().intValue())));
+
+        var lines = performGet("/rest/protocol/export")
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString().split("\\n");
+        assertThat(lines).hasSize(4);
+    }
+
+    @Test
+    @WithMockUser(username = "ADMIN")
+    void archiveReadsAllOldFields() throws Exception {
+        var modified = createOccupation(1);
+        modified.setCourt(2);
+        var protocol = new ProtocolEntity(modified, createOccupation(1), admin);
+        protocol.setTime(OLD);
+        var moved = protocolRepository.save(protocol);
+        protocolArchive.archive();
+
+        performGet("/rest/protocol/OCCUPATION/1")
+                .andExpect(jsonPath("$[*].id", Matchers.contains(older.getId().intValue(), old1.getId().intValue(),
+                        moved.getId().intValue())))
+                .andExpect(jsonPath("$[2].oldValue").value(ProtocolEntity.toJson(createOccupation(1).protocolFields())));
+    }
+
+    private ProtocolEntity save(OccupationEntity occupation, ActionType actionType, LocalDateTime time) {
+        var protocol = new ProtocolEntity(occupation, actionType, admin);
+        protocol.setTime(time);
+        return protocolRepository.save(protocol);
+    }
+
+    private static OccupationEntity createOccupation(long id) {
+        var occupation = occupation(id, 1, LocalDate.now(), LocalTime.of(10, 0), 2, 1);
+        occupation.setText("junit archive test");
+        return occupation;
+    }
+}
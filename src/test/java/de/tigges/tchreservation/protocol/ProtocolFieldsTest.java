@@ -0,0 +1,88 @@
+package de.tigges.tchreservation.protocol;
+
+import de.tigges.tchreservation.protocol.jpa.ProtocolEntity;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ProtocolFieldsTest {
+
+    @Test
+    void fieldsKeepOrderAndNullValues() {
+        var fields = new ProtocolFields("a", "1", "b", null, "c", "3");
+
+        assertThat(fields).hasSize(3);
+        assertThat(fields.keySet()).containsExactly("a", "b", "c");
+        assertThat(fields.get("a")).isEqualTo("1");
+        assertThat(fields.get("b")).isNull();
+        assertThat(fields.containsKey("b")).isTrue();
+        assertThat(fields.containsKey("d")).isFalse();
+        var expected = new LinkedHashMap<String, String>();
+        expected.put("a", "1");
+        expected.put("b", null);
+        expected.put("c", "3");
+        assertThat(fields).isEqualTo(expected);
+        assertThat(expected).isEqualTo(fields);
+    }
+
+    @Test
+    void oddKeyValuesAreRejected() {
+        assertThatThrownBy(() -> new ProtocolFields("a", "1", "b"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void changedContainsOnlyChangedOldValues() {
+        var oldFields = new ProtocolFields("court", "1", "text", "x", "user", null);
+        var newFields = new ProtocolFields("court", "2", "text", "x", "user", "3");
+
+        var changed = ProtocolFields.changed(oldFields, newFields);
+        assertThat(changed.keySet()).containsExactly("court", "user");
+        assertThat(changed.get("court")).isEqualTo("1");
+        assertThat(changed.get("user")).isNull();
+        assertThat(ProtocolFields.changed(oldFields, oldFields)).isEmpty();
+    }
+
+    @Test
+    void changedComparesMapsWithDifferentKeys() {
+        var oldFields = new ProtocolFields("court", "1", "text", "x");
+        var newFields = Map.of("court", "1", "other", "y");
+
+        assertThat(ProtocolFields.changed(oldFields, newFields))
+                .containsExactly(Map.entry("text", "x"), Map.entry(ProtocolFields.ADDED_KEYS, "other"));
+    }
+
+    @Test
+    void decodeOldReconstructsAllOldFields() {
+        var oldFields = new ProtocolFields("court", "1", "text", "x", "user", null);
+        var newFields = new ProtocolFields("court", "2", "text", "x", "user", "3");
+        var value = ProtocolEntity.toJson(newFields);
+        var oldValue = ProtocolEntity.toJson(ProtocolFields.changed(oldFields, newFields));
+
+        assertThat(ProtocolFields.decode(value)).isEqualTo(newFields);
+        assertThat(ProtocolFields.decodeOld(value, oldValue)).isEqualTo(oldFields);
+    }
+
+    @Test
+    void decodeOldWithKeysOfOnlyOneVersion() {
+        var oldFields = new ProtocolFields("court", "1", "removed", "x");
+        var newFields = Map.of("court", "1", "added", "y");
+        var value = ProtocolEntity.toJson(newFields);
+        var oldValue = ProtocolEntity.toJson(ProtocolFields.changed(oldFields, newFields));
+
+        assertThat(ProtocolFields.decodeOld(value, oldValue)).isEqualTo(oldFields);
+    }
+
+    @Test
+    void decodeOldReadsEntriesWithAllOldFields() {
+        var oldFields = new ProtocolFields("court", "1", "text", "x");
+        var value = ProtocolEntity.toJson(new ProtocolFields("court", "2", "text", "x"));
+
+        assertThat(ProtocolFields.decodeOld(value, ProtocolEntity.toJson(oldFields))).isEqualTo(oldFields);
+        assertThat(ProtocolFields.decode(null)).isEmpty();
+    }
+}
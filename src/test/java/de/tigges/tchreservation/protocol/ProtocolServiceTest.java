@@ -9,16 +9,22 @@ import org.hamcrest.Matchers;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.web.WebAppConfiguration;
+import tools.jackson.databind.ObjectMapper;
 
 import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.Random;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -68,6 +74,130 @@ public class ProtocolServiceTest extends ProtocolTest {
         performGet("/rest/protocol/1").andExpect(status().isUnauthorized());
     }
 
+    @Test
+    @WithMockUser(username = "ADMIN")
+    public void getPages() throws Exception {
+        var ids = new ArrayList<Long>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(protocolRepository.save(new ProtocolEntity(createOccupation(), ActionType.CREATE, admin)).getId());
+        }
+        ids.sort(Comparator.reverseOrder());
+
+        performGet("/rest/protocol?limit=2")
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", Matchers.contains(ids.get(0).intValue(), ids.get(1).intValue())))
+                .andExpect(jsonPath("$[0].userId").value(admin.getId()))
+                .andExpect(jsonPath("$[0].userName").value(admin.getName()))
+                .andExpect(jsonPath("$[0].user").doesNotExist());
+        performGet("/rest/protocol?limit=2&afterId=" + ids.get(1))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", Matchers.contains(ids.get(2).intValue(), ids.get(3).intValue())));
+        performGet("/rest/protocol?limit=2&afterId=" + ids.get(3))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", Matchers.contains(ids.get(4).intValue())));
+    }
+
+    @Test
+    @WithMockUser(username = "ADMIN")
+    public void getPageFiltered() throws Exception {
+        protocolRepository.save(new ProtocolEntity(createOccupation(), ActionType.CREATE, admin));
+        protocolRepository.save(new ProtocolEntity(createOccupation(), ActionType.DELETE, admin));
+        protocolRepository.save(new ProtocolEntity(createOccupation(), ActionType.CREATE, user));
+        protocolRepository.save(new ProtocolEntity(user, ActionType.MODIFY, admin));
+
+        performGet("/rest/protocol?entityType=OCCUPATION")
+                .andExpect(jsonPath("$.*", Matchers.hasSize(3)));
+        performGet("/rest/protocol?entityType=OCCUPATION&actionType=CREATE")
+                .andExpect(jsonPath("$.*", Matchers.hasSize(2)));
+        performGet("/rest/protocol?entityType=OCCUPATION&actionType=CREATE&userId=" + user.getId())
+                .andExpect(jsonPath("$.*", Matchers.hasSize(1)))
+                .andExpect(jsonPath("$[0].userName").value(user.getName()));
+        performGet("/rest/protocol?actionType=MODIFY")
+                .andExpect(jsonPath("$.*", Matchers.hasSize(1)))
+                .andExpect(jsonPath("$[0].entityType").value("USER"));
+    }
+
+    @Test
+    @WithMockUser(username = "ADMIN")
+    public void getHistory() throws Exception {
+        var occupation = createOccupation();
+        var other = createOccupation();
+        var created = protocolRepository.save(new ProtocolEntity(occupation, ActionType.CREATE, user));
+        protocolRepository.save(new ProtocolEntity(other, ActionType.CREATE, user));
+        var modified = createOccupation();
+        modified.setId(occupation.getId());
+        modified.setCourt(2);
+        var moved = protocolRepository.save(new ProtocolEntity(modified, occupation, admin));
+        protocolRepository.save(new ProtocolEntity(user, ActionType.MODIFY, admin));
+
+        performGet("/rest/protocol/OCCUPATION/" + occupation.getId())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", Matchers.contains(created.getId().intValue(), moved.getId().intValue())))
+                .andExpect(jsonPath("$[1].actionType").value("MODIFY"))
+                .andExpect(jsonPath("$[1].userName").value(admin.getName()));
+        performGet("/rest/protocol/RESERVATION/" + occupation.getId())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.*", Matchers.hasSize(0)));
+    }
+
+    @Test
+    @WithMockUser(username = "ADMIN")
+    public void readAllOldFields() throws Exception {
+        var now = new Date().getTime() - 1000;
+        var occupation = createOccupation();
+        var modified = createOccupation();
+        modified.setId(occupation.getId());
+        modified.setCourt(2);
+        var moved = protocolRepository.save(new ProtocolEntity(modified, occupation, admin));
+        var oldValue = ProtocolEntity.toJson(occupation.protocolFields());
+        assertThat(moved.getOldValue()).isNotEqualTo(oldValue);
+
+        performGet("/rest/protocol")
+                .andExpect(jsonPath("$[0].oldValue").value(oldValue));
+        performGet("/rest/protocol/OCCUPATION/" + occupation.getId())
+                .andExpect(jsonPath("$[0].oldValue").value(oldValue));
+        performGet("/rest/protocol/" + now)
+                .andExpect(jsonPath("$[0].oldValue").value(oldValue));
+        var line = performGet("/rest/protocol/export")
+                .andReturn().getResponse().getContentAsString().trim();
+        assertThat(new ObjectMapper().readTree(line).get("oldValue").asString()).isEqualTo(oldValue);
+        assertThat(protocolRepository.findById(moved.getId())).get()
+                .extracting(ProtocolEntity::getOldValue).isEqualTo(moved.getOldValue());
+    }
+
+    @Test
+    @WithMockUser(username = "ADMIN")
+    public void export() throws Exception {
+        var now = new Date().getTime() - 1000;
+        for (int i = 0; i < 3; i++) {
+            protocolRepository.save(new ProtocolEntity(createOccupation(), ActionType.CREATE, admin));
+        }
+        protocolRepository.save(new ProtocolEntity(createOccupation(), ActionType.DELETE, admin));
+
+        var lines = performGet("/rest/protocol/export?actionType=CREATE&since=" + now)
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString().split("\n");
+        assertThat(lines).hasSize(3);
+        for (var line : lines) {
+            var protocol = new ObjectMapper().readTree(line);
+            assertThat(protocol.get("actionType").asString()).isEqualTo("CREATE");
+            assertThat(protocol.get("userName").asString()).isEqualTo(admin.getName());
+        }
+
+        performGet("/rest/protocol/export?since=" + (now + 5000))
+                .andExpect(status().isOk())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    @WithMockUser(username = "REGISTERED")
+    public void getPageNotAdmin() throws Exception {
+        performGet("/rest/protocol").andExpect(status().isUnauthorized());
+        performGet("/rest/protocol/export").andExpect(status().isUnauthorized());
+        performGet("/rest/protocol/OCCUPATION/1").andExpect(status().isUnauthorized());
+    }
+
     private OccupationEntity createOccupation() {
         OccupationEntity occupation = new OccupationEntity();
         occupation.setId(new Random().nextLong());
@@ -0,0 +1,175 @@
+package de.tigges.tchreservation.protocol;
+
+import de.tigges.tchreservation.protocol.ProtocolWriter.ProtocolDurability;
+import de.tigges.tchreservation.protocol.jpa.ProtocolEntity;
+import de.tigges.tchreservation.protocol.jpa.ProtocolRepository;
+import de.tigges.tchreservation.reservation.jpa.OccupationEntity;
+import de.tigges.tchreservation.user.jpa.UserEntity;
+import de.tigges.tchreservation.user.model.ActivationStatus;
+import de.tigges.tchreservation.user.model.UserRole;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static de.tigges.tchreservation.OccupationEntities.occupation;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProtocolWriterTest {
+
+    private final ProtocolRepository protocolRepositoryMock = mock(ProtocolRepository.class);
+    private final List<List<ProtocolEntity>> batches = new CopyOnWriteArrayList<>();
+    private final UserEntity user = createUser();
+    private ProtocolWriter protocolWriter;
+
+    @AfterEach
+    void shutdown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        protocolWriter.shutdown();
+    }
+
+    @Test
+    void withoutTransactionWritesImmediately() {
+        protocolWriter = createWriter(ProtocolDurability.COMMIT, 10);
+        var occupation = createOccupation(1L);
+
+        protocolWriter.write(occupation, ActionType.CREATE, user);
+
+        assertThat(batches).hasSize(1);
+        var protocol = batches.getFirst().getFirst();
+        assertThat(protocol.getEntityType()).isEqualTo(EntityType.OCCUPATION);
+        assertThat(protocol.getEntityId()).isEqualTo(1L);
+        assertThat(protocol.getActionType()).isEqualTo(ActionType.CREATE);
+        assertThat(protocol.getValue()).contains("\"court\":\"1\"");
+        assertThat(protocol.getOldValue()).isNull();
+        assertThat(protocol.getUser()).isSameAs(user);
+    }
+
+    @Test
+    void commitModeWritesOneBatchBeforeCommit() {
+        protocolWriter = createWriter(ProtocolDurability.COMMIT, 10);
+        TransactionSynchronizationManager.initSynchronization();
+        var occupation = createOccupation(1L);
+        var modified = createOccupation(1L);
+        modified.setCourt(2);
+
+        protocolWriter.write(occupation, ActionType.CREATE, user);
+        protocolWriter.write(modified, occupation, user);
+        assertThat(batches).isEmpty();
+
+        completeTransaction(s -> s.beforeCommit(false), TransactionSynchronization.STATUS_COMMITTED);
+
+        assertThat(batches).hasSize(1);
+        assertThat(batches.getFirst()).hasSize(2);
+        var protocol = batches.getFirst().get(1);
+        assertThat(protocol.getActionType()).isEqualTo(ActionType.MODIFY);
+        assertThat(protocol.getValue()).contains("\"court\":\"2\"");
+        assertThat(protocol.getOldValue()).isEqualTo("{\"court\":\"1\"}");
+        assertThat(TransactionSynchronizationManager.hasResource(protocolWriter)).isFalse();
+    }
+
+    @Test
+    void commitModeRollbackWritesNothing() {
+        protocolWriter = createWriter(ProtocolDurability.COMMIT, 10);
+        TransactionSynchronizationManager.initSynchronization();
+
+        protocolWriter.write(createOccupation(1L), ActionType.CREATE, user);
+        completeTransaction(s -> {
+        }, TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertThat(batches).isEmpty();
+        assertThat(TransactionSynchronizationManager.hasResource(protocolWriter)).isFalse();
+    }
+
+    @Test
+    void asyncModeWritesAfterCommit() {
+        protocolWriter = createWriter(ProtocolDurability.ASYNC, 10);
+        TransactionSynchronizationManager.initSynchronization();
+
+        for (long id = 1; id <= 3; id++) {
+            protocolWriter.write(createOccupation(id), ActionType.CREATE, user);
+        }
+        assertThat(protocolWriter.flush(Duration.ofMillis(50))).isTrue();
+        assertThat(batches).isEmpty();
+
+        completeTransaction(TransactionSynchronization::afterCommit, TransactionSynchronization.STATUS_COMMITTED);
+
+        assertThat(protocolWriter.flush(Duration.ofSeconds(5))).isTrue();
+        assertThat(batches.stream().mapToInt(List::size).sum()).isEqualTo(3);
+    }
+
+    @Test
+    void asyncModeFullQueueWritesOnCaller() throws Exception {
+        protocolWriter = createWriter(ProtocolDurability.ASYNC, 1);
+        var release = new CountDownLatch(1);
+        var writing = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            if (Thread.currentThread().getName().equals("protocol-writer")) {
+                writing.countDown();
+                release.await(5, TimeUnit.SECONDS);
+            }
+            batches.add(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        }).when(protocolRepositoryMock).saveAll(any());
+        TransactionSynchronizationManager.initSynchronization();
+        protocolWriter.write(createOccupation(1L), ActionType.CREATE, user);
+        completeTransaction(TransactionSynchronization::afterCommit, TransactionSynchronization.STATUS_COMMITTED);
+        assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // one entry fits into the queue, the next one is written by the caller
+        TransactionSynchronizationManager.initSynchronization();
+        protocolWriter.write(createOccupation(2L), ActionType.CREATE, user);
+        protocolWriter.write(createOccupation(3L), ActionType.CREATE, user);
+        completeTransaction(TransactionSynchronization::afterCommit, TransactionSynchronization.STATUS_COMMITTED);
+        assertThat(batches).hasSize(1);
+        assertThat(batches.getFirst().getFirst().getEntityId()).isEqualTo(3L);
+
+        release.countDown();
+        assertThat(protocolWriter.flush(Duration.ofSeconds(5))).isTrue();
+        assertThat(batches.stream().mapToInt(List::size).sum()).isEqualTo(3);
+    }
+
+    private ProtocolWriter createWriter(ProtocolDurability durability, int queueCapacity) {
+        when(protocolRepositoryMock.saveAll(any())).thenAnswer(invocation -> {
+            batches.add(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        });
+        return new ProtocolWriter(protocolRepositoryMock, mock(PlatformTransactionManager.class), durability,
+                queueCapacity);
+    }
+
+    private static void completeTransaction(Consumer<TransactionSynchronization> beforeCompletion, int status) {
+        var synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        synchronizations.forEach(beforeCompletion);
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(s -> s.afterCompletion(status));
+    }
+
+    private static OccupationEntity createOccupation(long id) {
+        var occupation = occupation(id, 1, LocalDate.now(), LocalTime.of(10, 0), 2, 1);
+        occupation.setText("junit protocol writer");
+        return occupation;
+    }
+
+    private static UserEntity createUser() {
+        var user = new UserEntity("user@email.de", "user", "password", UserRole.REGISTERED, ActivationStatus.ACTIVE);
+        user.setId(42L);
+        return user;
+    }
+}
@@ -0,0 +1,33 @@
+package de.tigges.tchreservation.protocol.jpa;
+
+import de.tigges.tchreservation.protocol.ActionType;
+import de.tigges.tchreservation.protocol.EntityType;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProtocolQueriesImplTest {
+
+    @Test
+    void noFilters() {
+        assertThat(new ProtocolQueriesImpl.Filter(null, null, null).and("p.id < :afterId", "afterId", null).jpql())
+                .doesNotContain("where")
+                .endsWith(" order by p.id desc");
+    }
+
+    @Test
+    void onlyGivenFiltersAreQueried() {
+        var jpql = new ProtocolQueriesImpl.Filter(EntityType.OCCUPATION, null, 4L)
+                .and("p.id < :afterId", "afterId", 100L)
+                .jpql();
+        assertThat(jpql)
+                .contains(" where p.entityType = :entityType and u.id = :userId and p.id < :afterId order by")
+                .doesNotContain(":actionType", "is null");
+    }
+
+    @Test
+    void actionTypeFilter() {
+        assertThat(new ProtocolQueriesImpl.Filter(null, ActionType.DELETE, null).jpql())
+                .contains(" where p.actionType = :actionType order by");
+    }
+}
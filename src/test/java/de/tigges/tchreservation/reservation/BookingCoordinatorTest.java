@@ -0,0 +1,125 @@
+package de.tigges.tchreservation.reservation;
+
+import de.tigges.tchreservation.reservation.model.Occupation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BookingCoordinatorTest {
+    static final LocalDate DATE = LocalDate.now().plusDays(1);
+
+    private final BookingCoordinator bookingCoordinator = new BookingCoordinator();
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            completeTransaction();
+        }
+    }
+
+    @Test
+    void lockRequiresTransaction() {
+        assertThrows(IllegalStateException.class, () -> bookingCoordinator.lock(List.of(createOccupation(1, 1))));
+    }
+
+    @Test
+    void lockAllCourtsUntilCompletion() {
+        TransactionSynchronizationManager.initSynchronization();
+        bookingCoordinator.lock(List.of(createOccupation(1, 3)));
+        assertThat(bookingCoordinator.isLocked(1, DATE, 1)).isTrue();
+        assertThat(bookingCoordinator.isLocked(1, DATE, 2)).isTrue();
+        assertThat(bookingCoordinator.isLocked(1, DATE, 3)).isTrue();
+
+        completeTransaction();
+        assertThat(bookingCoordinator.isLocked(1, DATE, 1)).isFalse();
+        assertThat(bookingCoordinator.isLocked(1, DATE, 3)).isFalse();
+    }
+
+    @Test
+    void sameCourtWaitsForCompletion() throws Exception {
+        var locked = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var first = CompletableFuture.runAsync(() -> inTransaction(() -> {
+            bookingCoordinator.lock(List.of(createOccupation(1, 2)));
+            locked.countDown();
+            await(release);
+        }));
+        assertThat(locked.await(5, TimeUnit.SECONDS)).isTrue();
+
+        var second = CompletableFuture.runAsync(() -> inTransaction(
+                () -> bookingCoordinator.lock(List.of(createOccupation(2, 2)))));
+        assertThat(catchTimeout(second)).isTrue();
+
+        release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        second.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void overlappingCourtsInReverseOrderDoNotDeadlock() throws Exception {
+        var bookings = List.of(
+                List.of(createOccupation(1, 4), createOccupation(5, 6)),
+                List.of(createOccupation(5, 6), createOccupation(1, 4)));
+        var futures = bookings.stream()
+                .map(occupations -> CompletableFuture.runAsync(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        inTransaction(() -> bookingCoordinator.lock(occupations));
+                    }
+                }))
+                .toList();
+        for (var future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+    }
+
+    private void inTransaction(Runnable runnable) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            runnable.run();
+        } finally {
+            completeTransaction();
+        }
+    }
+
+    private static void completeTransaction() {
+        var synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+    }
+
+    private static boolean catchTimeout(CompletableFuture<?> future) {
+        try {
+            future.get(200, TimeUnit.MILLISECONDS);
+            return false;
+        } catch (Exception e) {
+            return true;
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Occupation createOccupation(int court, int lastCourt) {
+        var occupation = new Occupation();
+        occupation.setSystemConfigId(1);
+        occupation.setDate(DATE);
+        occupation.setCourt(court);
+        occupation.setLastCourt(lastCourt);
+        return occupation;
+    }
+}
@@ -0,0 +1,87 @@
+package de.tigges.tchreservation.reservation;
+
+import de.tigges.tchreservation.reservation.jpa.OccupationEntity;
+import de.tigges.tchreservation.reservation.jpa.ReservationEntity;
+import de.tigges.tchreservation.reservation.model.CompactOccupation;
+import de.tigges.tchreservation.reservation.model.CompactOccupationsMapper;
+import de.tigges.tchreservation.reservation.model.CompactReservation;
+import de.tigges.tchreservation.reservation.model.RepeatType;
+import de.tigges.tchreservation.user.jpa.UserEntity;
+import de.tigges.tchreservation.user.model.ActivationStatus;
+import de.tigges.tchreservation.user.model.User;
+import de.tigges.tchreservation.user.model.UserRole;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static de.tigges.tchreservation.OccupationEntities.occupation;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.groups.Tuple.tuple;
+
+class CompactOccupationsMapperTest {
+    static final LocalDate DATE = LocalDate.of(2026, 5, 15);
+
+    @Test
+    void mapEmpty() {
+        var compact = CompactOccupationsMapper.map(List.of());
+        assertThat(compact.occupations()).isEmpty();
+        assertThat(compact.reservations()).isEmpty();
+        assertThat(compact.users()).isEmpty();
+    }
+
+    @Test
+    void reservationsAndUsersOnlyOnce() {
+        var trainer = createUser(7L, "trainer");
+        var training = createReservation(11L, trainer);
+        var match = createReservation(12L, trainer);
+
+        var compact = CompactOccupationsMapper.map(List.of(
+                createOccupation(1L, 1, training),
+                createOccupation(2L, 2, training),
+                createOccupation(3L, 3, match)));
+
+        assertThat(compact.occupations()).extracting(CompactOccupation::id).containsExactly(1L, 2L, 3L);
+        assertThat(compact.occupations()).extracting(CompactOccupation::reservationId).containsExactly(11L, 11L, 12L);
+        assertThat(compact.occupations().getFirst()).isEqualTo(
+                new CompactOccupation(1L, 1L, "training", DATE, LocalTime.of(10, 0), 2, 1, 1, 1, 11L));
+        assertThat(compact.reservations()).containsExactly(
+                new CompactReservation(11L, 1L, "training", DATE, LocalTime.of(10, 0), 2, "1 2 3", 1,
+                        RepeatType.weekly, DATE.plusWeeks(4), 7L),
+                new CompactReservation(12L, 1L, "training", DATE, LocalTime.of(10, 0), 2, "1 2 3", 1,
+                        RepeatType.weekly, DATE.plusWeeks(4), 7L));
+        assertThat(compact.users()).extracting(User::getId, User::getName, User::getPassword)
+                .containsExactly(tuple(7L, "trainer", null));
+    }
+
+    private OccupationEntity createOccupation(Long id, int court, ReservationEntity reservation) {
+        var entity = occupation(id, 1L, DATE, LocalTime.of(10, 0), 2, court);
+        entity.setText("training");
+        entity.setType(1);
+        entity.setReservation(reservation);
+        return entity;
+    }
+
+    private ReservationEntity createReservation(Long id, UserEntity user) {
+        var entity = new ReservationEntity();
+        entity.setId(id);
+        entity.setSystemConfigId(1L);
+        entity.setText("training");
+        entity.setDate(DATE);
+        entity.setStart(LocalTime.of(10, 0));
+        entity.setDuration(2);
+        entity.setCourts("1 2 3");
+        entity.setType(1);
+        entity.setRepeatType(RepeatType.weekly);
+        entity.setRepeatUntil(DATE.plusWeeks(4));
+        entity.setUser(user);
+        return entity;
+    }
+
+    private UserEntity createUser(Long id, String name) {
+        var user = new UserEntity(name + "@myDomain.de", name, "top secret", UserRole.TRAINER, ActivationStatus.ACTIVE);
+        user.setId(id);
+        return user;
+    }
+}
@@ -0,0 +1,166 @@
+package de.tigges.tchreservation.reservation;
+
+import de.tigges.tchreservation.ValidatorTest;
+import de.tigges.tchreservation.reservation.jpa.OccupationEntity;
+import de.tigges.tchreservation.reservation.jpa.OccupationRepository;
+import de.tigges.tchreservation.reservation.model.FreeSlot;
+import de.tigges.tchreservation.reservation.model.ReservationSystemConfig;
+import de.tigges.tchreservation.reservation.model.SystemConfigReservationType;
+import de.tigges.tchreservation.user.jpa.UserEntity;
+import de.tigges.tchreservation.user.model.ActivationStatus;
+import de.tigges.tchreservation.user.model.UserRole;
+import de.tigges.tchreservation.util.exception.ErrorCode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collection;
+import java.util.List;
+
+import static de.tigges.tchreservation.OccupationEntities.occupation;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FreeSlotSearchTest extends ValidatorTest {
+    static final long SYSTEM_CONFIG_ID = 100L;
+    static final LocalDate DATE = LocalDate.now().plusDays(3);
+
+    private final OccupationRepository occupationRepositoryMock = mock(OccupationRepository.class);
+    private final UserEntity user = createUser();
+
+    private FreeSlotSearch freeSlotSearch;
+
+    @BeforeEach
+    void initSearch() {
+        freeSlotSearch = new FreeSlotSearch(new OccupationIndex(occupationRepositoryMock, mock(OccupationVersions.class)), createValidator());
+        // court 1 is free from 9:00 - 10:00 and from 21:00, court 2 from 21:30
+        when(occupationRepositoryMock.findBySystemConfigIdAndDate(eq(SYSTEM_CONFIG_ID), any())).thenReturn(List.of(
+                createEntity(1L, 1, 8, 0, 2),
+                createEntity(2L, 1, 10, 0, 22),
+                createEntity(3L, 2, 8, 0, 27)));
+    }
+
+    @Test
+    void earliestFreeSlots() {
+        assertThat(findFreeSlots(2, List.of(), createType(0, 0)))
+                .containsExactly(
+                        new FreeSlot(DATE, LocalTime.of(9, 0), 2, 1),
+                        new FreeSlot(DATE, LocalTime.of(21, 0), 2, 1));
+        assertThat(findFreeSlots(1, null, createType(0, 0)))
+                .containsExactly(
+                        new FreeSlot(DATE, LocalTime.of(9, 0), 1, 1),
+                        new FreeSlot(DATE, LocalTime.of(21, 0), 1, 1),
+                        new FreeSlot(DATE, LocalTime.of(21, 30), 1, 2));
+    }
+
+    @Test
+    void selectedCourts() {
+        assertThat(findFreeSlots(1, List.of(2), createType(0, 0)))
+                .containsExactly(new FreeSlot(DATE, LocalTime.of(21, 30), 1, 2));
+        assertThat(findFreeSlots(2, List.of(2), createType(0, 0))).isEmpty();
+    }
+
+    @Test
+    void freeDay() {
+        when(occupationRepositoryMock.findBySystemConfigIdAndDate(eq(SYSTEM_CONFIG_ID), any())).thenReturn(List.of());
+        assertThat(findFreeSlots(3, List.of(1, 2), createType(0, 0)))
+                .containsExactly(
+                        new FreeSlot(DATE, LocalTime.of(8, 0), 3, 1),
+                        new FreeSlot(DATE, LocalTime.of(8, 0), 3, 2));
+    }
+
+    @Test
+    void forbiddenDayOfWeek() {
+        assertThat(findFreeSlots(1, null, createType(0, 0, DATE.getDayOfWeek()))).isEmpty();
+    }
+
+    @Test
+    void tooFarInFuture() {
+        assertThat(findFreeSlots(1, null, createType(0, 2))).isEmpty();
+        assertThat(findFreeSlots(1, null, createType(0, 4))).hasSize(3);
+    }
+
+    @Test
+    void dateInThePast() {
+        assertThat(freeSlotSearch.findFreeSlots(LocalDate.now().minusDays(1), 1, null, 0, user,
+                createSystemConfig(createType(0, 0)))).isEmpty();
+    }
+
+    @Test
+    void durationTooLong() {
+        checkError(() -> findFreeSlots(3, null, createType(2, 0)), ErrorCode.DURATION_TOO_LONG);
+    }
+
+    @Test
+    void durationTooSmall() {
+        checkError(() -> findFreeSlots(0, null, createType(0, 0)), ErrorCode.DURATION_TOO_SMALL);
+    }
+
+    @Test
+    void invalidCourt() {
+        checkError(() -> findFreeSlots(1, List.of(3), createType(0, 0)), ErrorCode.COURT_TOO_BIG);
+        checkError(() -> findFreeSlots(1, List.of(0), createType(0, 0)), ErrorCode.COURT_TOO_SMALL);
+    }
+
+    @Test
+    void invalidType() {
+        checkError(() -> freeSlotSearch.findFreeSlots(DATE, 1, null, 7, user, createSystemConfig(createType(0, 0))),
+                ErrorCode.INVALID_RESERVATION_TYPE);
+    }
+
+    @Test
+    void typeNotAllowedForRole() {
+        user.setRole(UserRole.ANONYMOUS);
+        checkError(() -> findFreeSlots(1, null, createType(0, 0)), ErrorCode.USER_CANNOT_ADD_TYPE);
+    }
+
+    private List<FreeSlot> findFreeSlots(int duration, Collection<Integer> courts, SystemConfigReservationType type) {
+        return freeSlotSearch.findFreeSlots(DATE, duration, courts, 0, user, createSystemConfig(type));
+    }
+
+    private OccupationEntity createEntity(Long id, int court, int hour, int minute, int duration) {
+        return occupation(id, SYSTEM_CONFIG_ID, DATE, LocalTime.of(hour, minute), duration, court);
+    }
+
+    private ReservationSystemConfig createSystemConfig(SystemConfigReservationType type) {
+        return new ReservationSystemConfig(
+                SYSTEM_CONFIG_ID,
+                "",
+                "",
+                List.of("1", "2"),
+                30,
+                0,
+                0,
+                8,
+                22,
+                List.of(type)
+        );
+    }
+
+    private SystemConfigReservationType createType(int maxDuration, int maxDaysInFuture, DayOfWeek... forbiddenDays) {
+        return new SystemConfigReservationType(
+                0,
+                "Quickbuchung",
+                maxDuration,
+                maxDaysInFuture,
+                0,
+                false,
+                true,
+                List.of(forbiddenDays),
+                "",
+                List.of(UserRole.REGISTERED));
+    }
+
+    private UserEntity createUser() {
+        var user = new UserEntity();
+        user.setStatus(ActivationStatus.ACTIVE);
+        user.setName("JUnit user");
+        user.setRole(UserRole.REGISTERED);
+        return user;
+    }
+}
@@ -0,0 +1,57 @@
+package de.tigges.tchreservation.reservation;
+
+import de.tigges.tchreservation.protocol.ActionType;
+import de.tigges.tchreservation.reservation.jpa.OccupationEntity;
+import de.tigges.tchreservation.util.exception.RestException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import static de.tigges.tchreservation.OccupationEntities.occupation;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OccupationEventsTest {
+
+    private final OccupationEvents occupationEvents = new OccupationEvents(3, Duration.ofSeconds(20));
+
+    @AfterEach
+    void shutdown() {
+        occupationEvents.shutdown();
+    }
+
+    @Test
+    void subscribe() {
+        occupationEvents.subscribe(1);
+        occupationEvents.subscribe(1);
+        occupationEvents.subscribe(2);
+        assertThat(occupationEvents.getSubscriberCount(1)).isEqualTo(2);
+        assertThat(occupationEvents.getSubscriberCount(2)).isEqualTo(1);
+        assertThat(occupationEvents.getSubscriberCount(3)).isZero();
+    }
+
+    @Test
+    void subscribersAreLimited() {
+        occupationEvents.subscribe(1);
+        occupationEvents.subscribe(1);
+        occupationEvents.subscribe(2);
+        assertThatThrownBy(() -> occupationEvents.subscribe(3))
+                .isInstanceOfSatisfying(RestException.class,
+                        e -> assertThat(e.getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE));
+        assertThat(occupationEvents.getSubscriberCount(3)).isZero();
+    }
+
+    @Test
+    void publishWithoutSubscribers() {
+        occupationEvents.publish(ActionType.CREATE, createEntity());
+        assertThat(occupationEvents.getSubscriberCount(1)).isZero();
+    }
+
+    private OccupationEntity createEntity() {
+        return occupation(1L, 1, LocalDate.now(), LocalTime.of(10, 0), 2, 1);
+    }
+}
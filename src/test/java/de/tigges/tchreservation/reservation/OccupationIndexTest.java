@@ -0,0 +1,185 @@
+package de.tigges.tchreservation.reservation;
+
+import de.tigges.tchreservation.reservation.jpa.OccupationEntity;
+import de.tigges.tchreservation.reservation.jpa.OccupationRepository;
+import de.tigges.tchreservation.reservation.model.Occupation;
+import de.tigges.tchreservation.reservation.model.ReservationSystemConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static de.tigges.tchreservation.OccupationEntities.occupation;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class OccupationIndexTest {
+    static final long SYSTEM_CONFIG_ID = 100L;
+    static final LocalDate DATE = LocalDate.now().plusDays(1);
+
+    private final OccupationRepository occupationRepositoryMock = mock(OccupationRepository.class);
+    private final OccupationVersions occupationVersionsMock = mock(OccupationVersions.class);
+    private final ReservationSystemConfig systemConfig = createSystemConfig(30);
+
+    private OccupationIndex occupationIndex;
+
+    @BeforeEach
+    void initIndex() {
+        occupationIndex = new OccupationIndex(occupationRepositoryMock, occupationVersionsMock);
+        when(occupationRepositoryMock.findBySystemConfigIdAndDate(SYSTEM_CONFIG_ID, DATE))
+                .thenReturn(List.of(createEntity(1L, 1, 1, 10, 0, 2)));
+    }
+
+    @Test
+    void overlap() {
+        assertThat(occupationIndex.isOccupied(createOccupation(null, 1, 10, 30, 2), systemConfig)).isTrue();
+        assertThat(occupationIndex.isOccupied(createOccupation(null, 1, 9, 30, 2), systemConfig)).isTrue();
+    }
+
+    @Test
+    void noOverlapAdjacentTime() {
+        assertThat(occupationIndex.isOccupied(createOccupation(null, 1, 11, 0, 2), systemConfig)).isFalse();
+        assertThat(occupationIndex.isOccupied(createOccupation(null, 1, 9, 0, 2), systemConfig)).isFalse();
+    }
+
+    @Test
+    void noOverlapDifferentCourt() {
+        assertThat(occupationIndex.isOccupied(createOccupation(null, 2, 10, 0, 2), systemConfig)).isFalse();
+    }
+
+    @Test
+    void overlapMultipleCourts() {
+        when(occupationRepositoryMock.findBySystemConfigIdAndDate(SYSTEM_CONFIG_ID, DATE))
+                .thenReturn(List.of(createEntity(1L, 2, 4, 10, 0, 2)));
+        assertThat(occupationIndex.isOccupied(createOccupation(null, 3, 10, 0, 1), systemConfig)).isTrue();
+        assertThat(occupationIndex.isOccupied(createOccupation(null, 5, 10, 0, 1), systemConfig)).isFalse();
+    }
+
+    @Test
+    void noOverlapWithItself() {
+        assertThat(occupationIndex.isOccupied(createOccupation(1L, 1, 10, 30, 2), systemConfig)).isFalse();
+        assertThat(occupationIndex.isOccupied(createOccupation(2L, 1, 10, 30, 2), systemConfig)).isTrue();
+    }
+
+    @Test
+    void loadDayOnlyOnce() {
+        occupationIndex.isOccupied(createOccupation(null, 1, 12, 0, 2), systemConfig);
+        occupationIndex.isOccupied(createOccupation(null, 2, 12, 0, 2), systemConfig);
+        verify(occupationRepositoryMock, times(1)).findBySystemConfigIdAndDate(anyLong(), any());
+    }
+
+    @Test
+    void loadRange() {
+        when(occupationRepositoryMock.findBySystemConfigIdAndDateBetween(SYSTEM_CONFIG_ID, DATE, DATE.plusDays(14)))
+                .thenReturn(List.of(createEntity(1L, 1, 1, 10, 0, 2), createEntity(2L, 1, 1, 12, 0, 2, DATE.plusDays(7))));
+        occupationIndex.load(SYSTEM_CONFIG_ID, DATE, DATE.plusDays(14), systemConfig);
+
+        assertThat(occupationIndex.isOccupied(createOccupation(null, 1, 10, 0, 1), systemConfig)).isTrue();
+        var nextWeek = createOccupation(null, 1, 12, 0, 1);
+        nextWeek.setDate(DATE.plusDays(7));
+        assertThat(occupationIndex.isOccupied(nextWeek, systemConfig)).isTrue();
+        nextWeek.setDate(DATE.plusDays(14));
+        assertThat(occupationIndex.isOccupied(nextWeek, systemConfig)).isFalse();
+        verify(occupationRepositoryMock, never()).findBySystemConfigIdAndDate(anyLong(), any());
+    }
+
+    @Test
+    void savedOccupationIsSeenAfterVersionChange() {
+        occupationIndex.isOccupied(createOccupation(null, 1, 12, 0, 2), systemConfig);
+        when(occupationRepositoryMock.findBySystemConfigIdAndDate(SYSTEM_CONFIG_ID, DATE))
+                .thenReturn(List.of(createEntity(1L, 1, 1, 10, 0, 2), createEntity(2L, 1, 1, 12, 0, 2)));
+        assertThat(occupationIndex.isOccupied(createOccupation(null, 1, 12, 30, 1), systemConfig)).isFalse();
+
+        when(occupationVersionsMock.getVersion(SYSTEM_CONFIG_ID, DATE)).thenReturn(1L);
+        assertThat(occupationIndex.isOccupied(createOccupation(null, 1, 12, 30, 1), systemConfig)).isTrue();
+    }
+
+    @Test
+    void loadRangeKeepsDaysOfOtherVersions() {
+        when(occupationVersionsMock.getVersions(SYSTEM_CONFIG_ID, DATE, DATE.plusDays(1)))
+                .thenReturn(Map.of(DATE, 1L, DATE.plusDays(1), 0L));
+        occupationIndex.load(SYSTEM_CONFIG_ID, DATE, DATE.plusDays(1), systemConfig);
+
+        // the day has been written while loading, only this day is reloaded
+        when(occupationVersionsMock.getVersion(SYSTEM_CONFIG_ID, DATE)).thenReturn(2L);
+        var nextDay = createOccupation(null, 1, 10, 0, 2);
+        nextDay.setDate(DATE.plusDays(1));
+        occupationIndex.isOccupied(nextDay, systemConfig);
+        assertThat(occupationIndex.isOccupied(createOccupation(null, 1, 10, 0, 2), systemConfig)).isTrue();
+        verify(occupationRepositoryMock, times(1)).findBySystemConfigIdAndDate(anyLong(), any());
+        verify(occupationRepositoryMock, never()).findBySystemConfigIdAndDate(SYSTEM_CONFIG_ID, DATE.plusDays(1));
+    }
+
+    @Test
+    void reloadAfterVersionChange() {
+        occupationIndex.isOccupied(createOccupation(null, 1, 12, 0, 2), systemConfig);
+        // deleted by another node sharing the database
+        when(occupationRepositoryMock.findBySystemConfigIdAndDate(SYSTEM_CONFIG_ID, DATE)).thenReturn(List.of());
+        when(occupationVersionsMock.getVersion(SYSTEM_CONFIG_ID, DATE)).thenReturn(1L);
+
+        assertThat(occupationIndex.isOccupied(createOccupation(null, 1, 10, 0, 2), systemConfig)).isFalse();
+        verify(occupationRepositoryMock, times(2)).findBySystemConfigIdAndDate(anyLong(), any());
+    }
+
+    @Test
+    void loadRangeReloadsOnlyChangedDays() {
+        occupationIndex.isOccupied(createOccupation(null, 1, 12, 0, 2), systemConfig);
+        when(occupationVersionsMock.getVersions(SYSTEM_CONFIG_ID, DATE.minusDays(1), DATE))
+                .thenReturn(Map.of(DATE.minusDays(1), 0L, DATE, 0L));
+        occupationIndex.load(SYSTEM_CONFIG_ID, DATE.minusDays(1), DATE, systemConfig);
+        verify(occupationRepositoryMock).findBySystemConfigIdAndDateBetween(SYSTEM_CONFIG_ID, DATE.minusDays(1), DATE);
+
+        when(occupationVersionsMock.getVersions(SYSTEM_CONFIG_ID, DATE, DATE)).thenReturn(Map.of(DATE, 0L));
+        occupationIndex.load(SYSTEM_CONFIG_ID, DATE, DATE, systemConfig);
+        verify(occupationRepositoryMock, never()).findBySystemConfigIdAndDateBetween(SYSTEM_CONFIG_ID, DATE, DATE);
+    }
+
+    @Test
+    void reloadAfterSystemConfigChange() {
+        occupationIndex.isOccupied(createOccupation(null, 1, 12, 0, 2), systemConfig);
+        assertThat(occupationIndex.isOccupied(createOccupation(null, 1, 11, 0, 1), createSystemConfig(60)))
+                .isTrue();
+        verify(occupationRepositoryMock, times(2)).findBySystemConfigIdAndDate(anyLong(), any());
+    }
+
+    private Occupation createOccupation(Long id, int court, int hour, int minute, int duration) {
+        var occupation = new Occupation();
+        occupation.setId(id);
+        occupation.setSystemConfigId(SYSTEM_CONFIG_ID);
+        occupation.setDate(DATE);
+        occupation.setStart(LocalTime.of(hour, minute));
+        occupation.setDuration(duration);
+        occupation.setCourt(court);
+        occupation.setLastCourt(court);
+        return occupation;
+    }
+
+    private OccupationEntity createEntity(Long id, int court, int lastCourt, int hour, int minute, int duration) {
+        return createEntity(id, court, lastCourt, hour, minute, duration, DATE);
+    }
+
+    private OccupationEntity createEntity(Long id, int court, int lastCourt, int hour, int minute, int duration, LocalDate date) {
+        return occupation(id, SYSTEM_CONFIG_ID, date, LocalTime.of(hour, minute), duration, court, lastCourt);
+    }
+
+    private ReservationSystemConfig createSystemConfig(int durationUnits) {
+        return new ReservationSystemConfig(
+                SYSTEM_CONFIG_ID,
+                "",
+                "",
+                List.of("1", "2", "3", "4", "5", "6"),
+                durationUnits,
+                0,
+                0,
+                8,
+                22,
+                Collections.emptyList()
+        );
+    }
+}
@@ -0,0 +1,166 @@
+package de.tigges.tchreservation.reservation;
+
+import de.tigges.tchreservation.reservation.jpa.OccupationEntity;
+import de.tigges.tchreservation.reservation.jpa.OccupationRepository;
+import de.tigges.tchreservation.reservation.jpa.ReservationEntity;
+import de.tigges.tchreservation.reservation.jpa.ReservationRepository;
+import de.tigges.tchreservation.reservation.model.Reservation;
+import de.tigges.tchreservation.reservation.model.ReservationMapper;
+import de.tigges.tchreservation.systemconfig.jpa.SystemConfigEntity;
+import de.tigges.tchreservation.systemconfig.jpa.SystemConfigRepository;
+import de.tigges.tchreservation.user.UserMapper;
+import de.tigges.tchreservation.user.jpa.UserEntity;
+import de.tigges.tchreservation.user.jpa.UserRepository;
+import de.tigges.tchreservation.user.model.ActivationStatus;
+import de.tigges.tchreservation.user.model.UserRole;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * exclusion constraint and migration of <code>schema-postgres.sql</code> on a real PostgreSQL, skipped without
+ * docker
+ */
+@SpringBootTest
+@ActiveProfiles("postgres")
+@Testcontainers(disabledWithoutDocker = true)
+class OccupationOverlapPostgresTest {
+
+    @Container
+    @ServiceConnection
+    static final PostgreSQLContainer postgres = new PostgreSQLContainer("postgres:17-alpine");
+
+    @DynamicPropertySource
+    static void schemaProperties(DynamicPropertyRegistry registry) {
+        // an empty database: hibernate creates the tables, schema-postgres.sql migrates them afterwards
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "create");
+        registry.add("spring.jpa.defer-datasource-initialization", () -> "true");
+        registry.add("login.remember-me.key", () -> "postgres test key");
+    }
+
+    @Autowired
+    private OccupationRepository occupationRepository;
+    @Autowired
+    private ReservationRepository reservationRepository;
+    @Autowired
+    private SystemConfigRepository systemConfigRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private OccupationOverlapReport occupationOverlapReport;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private DataSource dataSource;
+
+    private ReservationEntity reservation;
+
+    @BeforeEach
+    void init() {
+        occupationRepository.deleteAll();
+        reservationRepository.deleteAll();
+        runSchemaScript();
+
+        var systemConfig = new SystemConfigEntity();
+        systemConfig.setId(1L);
+        systemConfig.setName("Platzbelegung");
+        systemConfig.setCourts("Platz 1,Platz 2,Platz 3");
+        systemConfig.setDurationUnitInMinutes(30);
+        systemConfig.setOpeningHour(8);
+        systemConfig.setClosingHour(22);
+        systemConfig.setTypes(Set.of());
+        systemConfig.setNew(!systemConfigRepository.existsById(1L));
+        systemConfigRepository.save(systemConfig);
+
+        var user = userRepository.findByNameOrEmail("TRAINER", "TRAINER").orElseGet(() -> userRepository.save(
+                new UserEntity("trainer@mydomain.de", "TRAINER", "secret", UserRole.TRAINER, ActivationStatus.ACTIVE)));
+        reservation = reservationRepository.save(ReservationMapper.map(new Reservation(1L, UserMapper.map(user),
+                "Training", "1", LocalDate.now().plusDays(1), LocalTime.of(10, 0), 2, 0)));
+    }
+
+    @Test
+    void overlappingOccupationIsRejected() {
+        occupationRepository.save(createOccupation(1, 1, LocalTime.of(10, 0)));
+        occupationRepository.save(createOccupation(2, 3, LocalTime.of(10, 0)));
+
+        var exception = assertThrows(RuntimeException.class,
+                () -> occupationRepository.save(createOccupation(1, 2, LocalTime.of(10, 30))));
+        assertThat(OccupationOverlapConstraint.isViolation(exception)).isTrue();
+        // adjacent periods do not overlap
+        occupationRepository.save(createOccupation(1, 2, LocalTime.of(11, 0)));
+    }
+
+    @Test
+    void existingOverlapsAreReportedInsteadOfFailingTheStart() {
+        jdbcTemplate.execute("ALTER TABLE occupation DROP CONSTRAINT " + OccupationOverlapConstraint.NAME);
+        var single = occupationRepository.save(createOccupation(2, 2, LocalTime.of(10, 0)));
+        var multiCourt = occupationRepository.save(createOccupation(1, 3, LocalTime.of(10, 30)));
+
+        runSchemaScript();
+        assertThat(hasConstraint()).isFalse();
+        assertThat(occupationOverlapReport.getConflicts())
+                .singleElement()
+                .satisfies(conflict -> assertThat(conflict).containsExactly(single.getId(), multiCourt.getId()));
+
+        occupationRepository.delete(multiCourt);
+        runSchemaScript();
+        assertThat(hasConstraint()).isTrue();
+        assertThat(occupationOverlapReport.getConflicts()).isEmpty();
+    }
+
+    @Test
+    void versionOfDayIsCreatedAndIncrementedWithTheWrite() {
+        jdbcTemplate.update("DELETE FROM occupation_version");
+
+        occupationRepository.save(createOccupation(1, 1, LocalTime.of(10, 0)));
+        occupationRepository.save(createOccupation(2, 2, LocalTime.of(10, 0)));
+
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT version FROM occupation_version WHERE system_config_id = 1 AND date = ?", Long.class,
+                reservation.getDate())).isEqualTo(2);
+    }
+
+    private OccupationEntity createOccupation(int court, int lastCourt, LocalTime start) {
+        var occupation = new OccupationEntity();
+        occupation.setSystemConfigId(1L);
+        occupation.setText(reservation.getText());
+        occupation.setDate(reservation.getDate());
+        occupation.setStart(start);
+        occupation.setDuration(2);
+        occupation.setCourt(court);
+        occupation.setLastCourt(lastCourt);
+        occupation.setReservation(reservation);
+        return occupation;
+    }
+
+    private boolean hasConstraint() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = ?)", Boolean.class,
+                OccupationOverlapConstraint.NAME));
+    }
+
+    private void runSchemaScript() {
+        var populator = new ResourceDatabasePopulator(new ClassPathResource("schema-postgres.sql"));
+        populator.setSeparator("^^^ END OF SCRIPT ^^^");
+        populator.execute(dataSource);
+    }
+}
@@ -0,0 +1,83 @@
+package de.tigges.tchreservation.reservation;
+
+import org.h2.api.Trigger;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * H2 replacement of the PostgreSQL exclusion constraint {@link OccupationOverlapConstraint}
+ * <p>
+ * installed by <code>schema-h2.sql</code>
+ */
+public class OccupationOverlapTrigger implements Trigger {
+
+    private static final String OVERLAP_QUERY = """
+            SELECT COUNT(*) FROM occupation o
+            JOIN systemconfig s ON s.id = o.system_config_id
+            WHERE o.system_config_id = ? AND o.date = ? AND o.id <> ?
+            AND o.court <= ? AND GREATEST(o.court, o.last_court) >= ?
+            AND HOUR(o.start) * 60 + MINUTE(o.start) < ?
+            AND HOUR(o.start) * 60 + MINUTE(o.start) + o.duration * s.duration_unit_in_minutes > ?
+            """;
+
+    private final Map<String, Integer> columns = new HashMap<>();
+
+    @Override
+    public void init(Connection conn, String schemaName, String triggerName, String tableName, boolean before, int type)
+            throws SQLException {
+        try (var resultSet = conn.getMetaData().getColumns(null, schemaName, tableName, null)) {
+            while (resultSet.next()) {
+                columns.put(resultSet.getString("COLUMN_NAME").toLowerCase(Locale.ROOT),
+                        resultSet.getInt("ORDINAL_POSITION") - 1);
+            }
+        }
+    }
+
+    @Override
+    public void fire(Connection conn, Object[] oldRow, Object[] newRow) throws SQLException {
+        var systemConfigId = ((Number) value(newRow, "system_config_id")).longValue();
+        var court = ((Number) value(newRow, "court")).intValue();
+        var lastCourt = Math.max(court, ((Number) value(newRow, "last_court")).intValue());
+        var start = (LocalTime) value(newRow, "start");
+        var startMinutes = start.getHour() * 60 + start.getMinute();
+
+        Integer durationUnit = null;
+        try (var statement = conn.prepareStatement("SELECT duration_unit_in_minutes FROM systemconfig WHERE id = ?")) {
+            statement.setLong(1, systemConfigId);
+            try (var resultSet = statement.executeQuery()) {
+                if (resultSet.next()) {
+                    durationUnit = resultSet.getInt(1);
+                }
+            }
+        }
+        if (durationUnit == null) {
+            return;
+        }
+        var endMinutes = startMinutes + ((Number) value(newRow, "duration")).intValue() * durationUnit;
+
+        try (var statement = conn.prepareStatement(OVERLAP_QUERY)) {
+            statement.setLong(1, systemConfigId);
+            statement.setObject(2, value(newRow, "date"));
+            statement.setLong(3, ((Number) value(newRow, "id")).longValue());
+            statement.setInt(4, lastCourt);
+            statement.setInt(5, court);
+            statement.setInt(6, endMinutes);
+            statement.setInt(7, startMinutes);
+            try (var resultSet = statement.executeQuery()) {
+                if (resultSet.next() && resultSet.getInt(1) > 0) {
+                    throw new SQLException("conflicting key value violates exclusion constraint \""
+                            + OccupationOverlapConstraint.NAME + "\"", OccupationOverlapConstraint.SQL_STATE);
+                }
+            }
+        }
+    }
+
+    private Object value(Object[] row, String column) {
+        return row[columns.get(column)];
+    }
+}
@@ -3,6 +3,7 @@ package de.tigges.tchreservation.reservation;
 import de.tigges.tchreservation.ValidatorTest;
 import de.tigges.tchreservation.util.exception.AuthorizationException;
 import de.tigges.tchreservation.util.exception.ErrorCode;
+import de.tigges.tchreservation.reservation.jpa.OccupationEntity;
 import de.tigges.tchreservation.reservation.jpa.OccupationRepository;
 import de.tigges.tchreservation.reservation.model.Occupation;
 import de.tigges.tchreservation.reservation.model.ReservationSystemConfig;
@@ -10,6 +11,7 @@ import de.tigges.tchreservation.reservation.model.SystemConfigReservationType;
 import de.tigges.tchreservation.user.jpa.UserEntity;
 import de.tigges.tchreservation.user.model.ActivationStatus;
 import de.tigges.tchreservation.user.model.UserRole;
+import de.tigges.tchreservation.util.validation.Violation;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -23,9 +25,13 @@ import java.util.List;
 
 import static java.time.DayOfWeek.SUNDAY;
 import static java.time.temporal.TemporalAdjusters.next;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
 
 public class OccupationValidatorTest extends ValidatorTest {
     static final long SYSTEM_CONFIG_ID = 100L;
@@ -37,7 +43,7 @@ public class OccupationValidatorTest extends ValidatorTest {
 
     @BeforeEach
     void initValidator() {
-        occupationValidator = new OccupationValidator(occupationRepositoryMock, createValidator());
+        occupationValidator = new OccupationValidator(new OccupationIndex(occupationRepositoryMock, mock(OccupationVersions.class)), createValidator());
     }
 
     @Test
@@ -201,6 +207,37 @@ public class OccupationValidatorTest extends ValidatorTest {
         checkOccupationFieldError(occupation, user, systemConfig, ErrorCode.USER_CANNOT_ADD_TYPE, "type");
     }
 
+    @Test
+    void occupiedIsReportedWithoutMessageLookup() {
+        var user = createUser(UserRole.REGISTERED);
+        var systemConfig = createSystemConfig(60, createType(UserRole.REGISTERED));
+        var occupation = createOccupation();
+        var occupied = new OccupationEntity();
+        occupied.setId(1L);
+        occupied.setSystemConfigId(SYSTEM_CONFIG_ID);
+        occupied.setDate(occupation.getDate());
+        occupied.setStart(occupation.getStart());
+        occupied.setDuration(1);
+        occupied.setCourt(1);
+        when(occupationRepositoryMock.findBySystemConfigIdAndDate(SYSTEM_CONFIG_ID, occupation.getDate()))
+                .thenReturn(List.of(occupied));
+
+        var result = occupationValidator.checkOccupation(occupation, user, systemConfig);
+
+        assertFalse(result.isValid());
+        assertEquals(List.of(ErrorCode.OCCUPIED), result.getViolations().stream().map(Violation::code).toList());
+        verifyNoInteractions(messageSourceMock);
+        checkOccupationError(occupation, user, systemConfig, ErrorCode.OCCUPIED);
+    }
+
+    @Test
+    void validOccupationHasNoViolations() {
+        var user = createUser(UserRole.REGISTERED);
+        var systemConfig = createSystemConfig(60, createType(UserRole.REGISTERED));
+
+        assertTrue(occupationValidator.checkOccupation(createOccupation(), user, systemConfig).isValid());
+    }
+
     private void checkOccupationError(Occupation occupation, UserEntity user, ReservationSystemConfig systemConfig, ErrorCode expectedError) {
         checkError(
                 () -> occupationValidator.validateOccupation(occupation, user, systemConfig),
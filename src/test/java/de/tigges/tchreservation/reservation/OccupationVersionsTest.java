@@ -0,0 +1,102 @@
+package de.tigges.tchreservation.reservation;
+
+import de.tigges.tchreservation.reservation.jpa.OccupationVersionRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class OccupationVersionsTest {
+    static final LocalDate DATE = LocalDate.now().plusDays(1);
+
+    @Autowired
+    private OccupationVersions occupationVersions;
+    @Autowired
+    private OccupationVersionRepository occupationVersionRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void changedIncrementsVersionOfDay() {
+        var version = occupationVersions.getVersion(11, DATE);
+        var nextDay = occupationVersions.getVersion(11, DATE.plusDays(1));
+        var otherSystem = occupationVersions.getVersion(12, DATE);
+        occupationVersions.changed(11, DATE);
+        assertThat(occupationVersions.getVersion(11, DATE)).isGreaterThan(version);
+        assertThat(occupationVersions.getVersion(11, DATE.plusDays(1))).isEqualTo(nextDay);
+        assertThat(occupationVersions.getVersion(12, DATE)).isEqualTo(otherSystem);
+    }
+
+    @Test
+    void rangeVersionChangesWithEveryDay() {
+        var version = occupationVersions.getVersion(13, DATE, DATE.plusDays(6));
+        occupationVersions.changed(13, DATE.plusDays(3));
+        var changedVersion = occupationVersions.getVersion(13, DATE, DATE.plusDays(6));
+        assertThat(changedVersion).isGreaterThan(version);
+        occupationVersions.changed(13, DATE);
+        assertThat(occupationVersions.getVersion(13, DATE, DATE.plusDays(6))).isGreaterThan(changedVersion);
+        var rangeVersion = occupationVersions.getVersion(13, DATE, DATE.plusDays(6));
+        occupationVersions.changed(13, DATE.plusDays(7));
+        assertThat(occupationVersions.getVersion(13, DATE, DATE.plusDays(6))).isEqualTo(rangeVersion);
+    }
+
+    @Test
+    void versionIsIncrementedOnCommitOnly() {
+        var transactionTemplate = new TransactionTemplate(transactionManager);
+        var version = occupationVersions.getVersion(14, DATE);
+        transactionTemplate.executeWithoutResult(status -> {
+            occupationVersions.changed(14, DATE);
+            occupationVersions.changed(14, DATE);
+            status.setRollbackOnly();
+        });
+        assertThat(occupationVersions.getVersion(14, DATE)).isEqualTo(version);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            occupationVersions.changed(14, DATE);
+            occupationVersions.changed(14, DATE);
+        });
+        assertThat(occupationVersions.getVersion(14, DATE)).isEqualTo(version + 1);
+    }
+
+    @Test
+    void versionsAreSharedBetweenNodes() {
+        var otherNode = otherNode(Duration.ZERO);
+        var version = otherNode.getVersion(15, DATE);
+        occupationVersions.changed(15, DATE);
+        assertThat(otherNode.getVersion(15, DATE)).isGreaterThan(version);
+        assertThat(otherNode.getVersion(15, DATE)).isEqualTo(occupationVersions.getVersion(15, DATE));
+    }
+
+    @Test
+    void versionsOfOtherNodesAreCachedUntilTimeToLive() {
+        var otherNode = otherNode(Duration.ofHours(1));
+        var version = otherNode.getVersion(16, DATE, DATE.plusDays(1));
+        occupationVersions.changed(16, DATE);
+        assertThat(otherNode.getVersion(16, DATE, DATE.plusDays(1))).isEqualTo(version);
+        assertThat(occupationVersions.getVersion(16, DATE, DATE.plusDays(1))).isEqualTo(version + 1);
+        assertThat(occupationVersions.getVersions(16, DATE, DATE.plusDays(1)))
+                .containsExactly(entry(DATE, version + 1), entry(DATE.plusDays(1), 0L));
+    }
+
+    private OccupationVersions otherNode(Duration cacheTtl) {
+        return new OccupationVersions(occupationVersionRepository, entityManager, transactionManager, cacheTtl, "");
+    }
+
+    @Test
+    void eTag() {
+        assertThat(OccupationVersions.eTag(42)).isEqualTo("\"42\"");
+    }
+}
@@ -0,0 +1,53 @@
+package de.tigges.tchreservation.reservation;
+
+import de.tigges.tchreservation.reservation.model.RecurrenceRule;
+import de.tigges.tchreservation.reservation.model.RepeatType;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecurrenceRuleTest {
+
+    static final LocalDate START = LocalDate.of(2026, 4, 6);
+
+    @Test
+    void singleDate() {
+        var rule = new RecurrenceRule(START, null, null);
+
+        assertThat(rule.dates()).containsExactly(START);
+        assertThat(rule.count()).isEqualTo(1);
+    }
+
+    @Test
+    void daily() {
+        var rule = new RecurrenceRule(START, RepeatType.daily, START.plusDays(2));
+
+        assertThat(rule.dates()).containsExactly(START, START.plusDays(1), START.plusDays(2));
+        assertThat(rule.count()).isEqualTo(3);
+    }
+
+    @Test
+    void weekly() {
+        var rule = new RecurrenceRule(START, RepeatType.weekly, START.plusDays(20));
+
+        assertThat(rule.dates()).containsExactly(START, START.plusWeeks(1), START.plusWeeks(2));
+        assertThat(rule.count()).isEqualTo(3);
+    }
+
+    @Test
+    void countMatchesDates() {
+        var rule = new RecurrenceRule(START, RepeatType.weekly, START.plusYears(1));
+
+        assertThat(rule.dates().count()).isEqualTo(rule.count());
+    }
+
+    @Test
+    void repeatUntilBeforeDate() {
+        var rule = new RecurrenceRule(START, RepeatType.daily, START.minusDays(1));
+
+        assertThat(rule.dates()).isEmpty();
+        assertThat(rule.count()).isZero();
+    }
+}
@@ -3,7 +3,10 @@ package de.tigges.tchreservation.reservation;
 import tools.jackson.databind.ObjectMapper;
 import de.tigges.tchreservation.ProtocolTest;
 import de.tigges.tchreservation.protocol.ActionType;
+import de.tigges.tchreservation.protocol.EntityType;
+import de.tigges.tchreservation.reservation.jpa.OccupationEntity;
 import de.tigges.tchreservation.reservation.jpa.OccupationRepository;
+import de.tigges.tchreservation.reservation.jpa.ReservationEntity;
 import de.tigges.tchreservation.reservation.jpa.ReservationRepository;
 import de.tigges.tchreservation.reservation.model.*;
 import de.tigges.tchreservation.systemconfig.jpa.ReservationTypeEntity;
@@ -14,18 +17,25 @@ import de.tigges.tchreservation.user.UserMapper;
 import de.tigges.tchreservation.user.jpa.UserEntity;
 import de.tigges.tchreservation.user.model.ActivationStatus;
 import de.tigges.tchreservation.user.model.UserRole;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
 import org.hamcrest.Matchers;
+import org.hibernate.SessionFactory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.ResultActions;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.util.Arrays;
 import java.util.List;
@@ -34,8 +44,14 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
+import static de.tigges.tchreservation.OccupationEntities.occupation;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -52,6 +68,16 @@ public class ReservationServiceTest extends ProtocolTest {
     private SystemConfigRepository systemConfigRepository;
     @Autowired
     private ReservationTypeRepository reservationTypeRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private ReservationSystemConfigRepository reservationSystemConfigRepository;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private OccupationVersions occupationVersions;
 
     private UserEntity user;
     private UserEntity trainer;
@@ -64,6 +90,7 @@ public class ReservationServiceTest extends ProtocolTest {
         this.userRepository.deleteAll();
         this.reservationTypeRepository.deleteAll();
         this.systemConfigRepository.deleteAll();
+        this.reservationSystemConfigRepository.invalidateAll();
 
         user = addUser(UserRole.REGISTERED);
         trainer = addUser(UserRole.TRAINER);
@@ -129,6 +156,21 @@ public class ReservationServiceTest extends ProtocolTest {
         addReservation(createReservation(1, 1, 10, 2));
     }
 
+    @Test
+    @WithMockUser(username = "TRAINER")
+    public void systemConfigIsCached() throws Exception {
+        var hits = cacheGets("hit");
+        var misses = cacheGets("miss");
+
+        addReservation(createReservation(1, 1, 10, 2));
+        addReservation(createReservation(1, 2, 10, 2));
+        addReservation(createReservation(1, 3, 10, 2));
+
+        assertThat(cacheGets("miss") - misses).isEqualTo(1);
+        assertThat(cacheGets("hit") - hits).isEqualTo(2);
+        assertThat(reservationSystemConfigRepository.get(1).courts()).hasSize(6);
+    }
+
     @Test
     @WithMockUser(username = "TRAINER")
     public void addReservationWithUser() throws Exception {
@@ -178,6 +220,34 @@ public class ReservationServiceTest extends ProtocolTest {
         addReservationOverlap(createReservation(1, 1, 10, 3));
     }
 
+    @Test
+    @WithMockUser(username = "TRAINER")
+    public void addReservationOverlapRejectedByDatabase() throws Exception {
+        var reservation = getReservation(addReservation(createReservation(1, 1, 10, 1)));
+        // written by another application node: not known to the occupation index of this node
+        jdbcTemplate.update("""
+                        INSERT INTO occupation (id, system_config_id, date, start, duration, court, last_court, text, type, reservation_id)
+                        VALUES (-1, 1, ?, ?, 2, 2, 2, 'other node', 0, ?)""",
+                reservation.getDate(), LocalTime.of(12, 0), reservation.getId());
+
+        addReservationOverlap(createReservation(1, 2, 12, 1));
+        assertThat(occupationRepository.findBySystemConfigIdAndDate(1, reservation.getDate())).hasSize(2);
+    }
+
+    @Test
+    @WithMockUser(username = "TRAINER")
+    public void overlappingOccupationsRejectedByDatabase() throws Exception {
+        var occupation = occupationRepository.findById(
+                        getReservation(addReservation(createReservation(1, 3, 10, 2))).getOccupations().getFirst().getId())
+                .orElseThrow();
+        var overlapping = OccupationMapper.map(OccupationMapper.map(occupation));
+        overlapping.setId(null);
+        overlapping.setStart(LocalTime.of(10, 30));
+
+        var exception = assertThrows(RuntimeException.class, () -> occupationRepository.save(overlapping));
+        assertThat(OccupationOverlapConstraint.isViolation(exception)).isTrue();
+    }
+
     @Test
     @WithMockUser(username = "TRAINER")
     public void addReservationOverlap2() throws Exception {
@@ -377,6 +447,22 @@ public class ReservationServiceTest extends ProtocolTest {
         checkReservationRepeatWeekly(11, 21, 8, 3, 5);
     }
 
+    @Test
+    @WithMockUser(username = "ADMIN")
+    public void addReservationWeeklyRepeatProtocol() throws Exception {
+        var reservation = createReservation(1, 1, 14, 2);
+        reservation.setRepeatUntil(reservation.getDate().plusWeeks(6));
+        reservation.setRepeatType(RepeatType.weekly);
+        reservation.setCourtsFromInteger(1, 2, 4);
+        var savedReservation = getReservation(addReservation(reservation));
+
+        assertThat(savedReservation.getOccupations()).hasSize(14);
+        for (var occupation : savedReservation.getOccupations()) {
+            assertThat(occupation.getId()).isNotNull();
+            checkProtocol(OccupationMapper.map(occupation), ActionType.CREATE);
+        }
+    }
+
     private void checkReservationRepeatWeekly(int hour, int repeatDays, int expectedOccupations, int... courts) throws Exception {
         var reservation = createReservation(1, 1, hour, 2);
         reservation.setRepeatUntil(reservation.getDate().plusDays(repeatDays));
@@ -387,6 +473,22 @@ public class ReservationServiceTest extends ProtocolTest {
         assertThat(StreamSupport.stream(occupations.spliterator(), false)).hasSize(expectedOccupations);
     }
 
+    @Test
+    @WithMockUser(username = "ADMIN")
+    public void getConflictsWeeklyRepeat() throws Exception {
+        var occupied = createReservation(1, 3, 10, 2);
+        occupied.setDate(occupied.getDate().plusWeeks(2));
+        addReservation(occupied);
+
+        var reservation = createReservation(1, 3, 10, 2);
+        reservation.setRepeatType(RepeatType.weekly);
+        reservation.setRepeatUntil(reservation.getDate().plusWeeks(4));
+        performPost("/rest/reservation/conflicts", reservation)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", Matchers.hasSize(1)))
+                .andExpect(jsonPath("$[0].errorMessages[0].code").value("OCCUPIED"));
+    }
+
     @Test
     @WithMockUser(username = "TRAINER")
     public void addReservationNoRepeatUntil() throws Exception {
@@ -588,6 +690,118 @@ public class ReservationServiceTest extends ProtocolTest {
         checkReservation(updateReservation(reservation), reservation, ActionType.MODIFY);
     }
 
+    @Test
+    @WithMockUser(username = "ADMIN")
+    public void updateOccupationsOverlap() throws Exception {
+        var reservation = checkReservationRepeatDaily(8, 3, 4, 2);
+        addReservation(createReservation(1, 3, 8, 2));
+        reservation.setCourts("3");
+        reservation.getOccupations().forEach(o -> o.setCourt(3));
+        checkError(updateReservation(reservation), HttpStatus.BAD_REQUEST,
+                "Reservierung am %tF %tR nicht möglich, weil Platz %s belegt ist"
+                        .formatted(reservation.getDate(), reservation.getStart(), 3));
+        occupationRepository.findByReservationId(reservation.getId())
+                .forEach(o -> assertThat(o.getCourt()).isEqualTo(2));
+    }
+
+    @Test
+    @WithMockUser(username = "TRAINER")
+    public void updateSeries() throws Exception {
+        var reservation = createReservation(1, 3, 10, 2);
+        reservation.setRepeatType(RepeatType.weekly);
+        reservation.setRepeatUntil(reservation.getDate().plusWeeks(4));
+        var saved = getReservation(addReservation(reservation));
+        var from = saved.getDate().plusWeeks(2);
+
+        performPut("/rest/reservation/" + saved.getId() + "/series",
+                new SeriesChange(from, "Training", LocalTime.of(11, 0), null, null))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.occupations", Matchers.hasSize(3)))
+                .andExpect(jsonPath("$.text").value(reservation.getText()));
+
+        for (var occupation : occupationRepository.findByReservationId(saved.getId())) {
+            var changed = !occupation.getDate().isBefore(from);
+            assertThat(occupation.getStart()).isEqualTo(LocalTime.of(changed ? 11 : 10, 0));
+            assertThat(occupation.getText()).isEqualTo(changed ? "Training" : reservation.getText());
+            assertThat(occupation.getDuration()).isEqualTo(2);
+        }
+        var protocols = StreamSupport.stream(protocolRepository
+                        .findByEntityTypeAndEntityId(EntityType.RESERVATION, saved.getId()).spliterator(), false)
+                .filter(p -> p.getActionType() == ActionType.MODIFY)
+                .toList();
+        assertThat(protocols).hasSize(1);
+        assertThat(protocols.getFirst().getValue()).contains("\"occupations\":\"3\"", "\"start\":\"11:00\"");
+        assertThat(protocols.getFirst().getOldValue()).doesNotContain("duration").contains("\"start\":\"10:00\"");
+        // the freed slot of the series can be booked again
+        var free = createReservation(1, 3, 10, 1);
+        free.setDate(from);
+        addReservation(free);
+    }
+
+    @Test
+    @WithMockUser(username = "TRAINER")
+    public void updateSeriesFromFirstDateChangesReservation() throws Exception {
+        var reservation = createReservation(1, 3, 10, 2);
+        reservation.setRepeatType(RepeatType.weekly);
+        reservation.setRepeatUntil(reservation.getDate().plusWeeks(2));
+        var saved = getReservation(addReservation(reservation));
+
+        performPut("/rest/reservation/" + saved.getId() + "/series",
+                new SeriesChange(saved.getDate(), null, null, 1, "4"))
+                .andExpect(status().isOk());
+
+        var reservationEntity = reservationRepository.findById(saved.getId()).orElseThrow();
+        assertThat(reservationEntity.getDuration()).isEqualTo(1);
+        assertThat(reservationEntity.getCourts()).isEqualTo("4");
+        for (var occupation : occupationRepository.findByReservationId(saved.getId())) {
+            assertThat(occupation.getCourt()).isEqualTo(4);
+            assertThat(occupation.getLastCourt()).isEqualTo(4);
+            assertThat(occupation.getDuration()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    @WithMockUser(username = "TRAINER")
+    public void updateSeriesOccupied() throws Exception {
+        var reservation = createReservation(1, 3, 10, 2);
+        reservation.setRepeatType(RepeatType.weekly);
+        reservation.setRepeatUntil(reservation.getDate().plusWeeks(2));
+        var saved = getReservation(addReservation(reservation));
+        var occupied = createReservation(1, 3, 11, 2);
+        occupied.setDate(saved.getDate().plusWeeks(1));
+        addReservation(occupied);
+
+        checkError(performPut("/rest/reservation/" + saved.getId() + "/series",
+                        new SeriesChange(saved.getDate(), null, LocalTime.of(11, 0), null, null)),
+                HttpStatus.BAD_REQUEST, null);
+        for (var occupation : occupationRepository.findByReservationId(saved.getId())) {
+            assertThat(occupation.getStart()).isEqualTo(LocalTime.of(10, 0));
+        }
+    }
+
+    @Test
+    @WithMockUser(username = "TRAINER")
+    public void updateSeriesCourtsNotAdjacent() throws Exception {
+        var reservation = createReservation(1, 3, 10, 2);
+        reservation.setRepeatType(RepeatType.weekly);
+        reservation.setRepeatUntil(reservation.getDate().plusWeeks(2));
+        var saved = getReservation(addReservation(reservation));
+
+        var resultActions = checkError(performPut("/rest/reservation/" + saved.getId() + "/series",
+                        new SeriesChange(saved.getDate(), null, null, null, "1 3")),
+                HttpStatus.BAD_REQUEST, null);
+        assertFieldError(resultActions, 0, "courts",
+                "Die Plätze einer Serie können nur in nebeneinander liegende Plätze und bei einer Belegung pro Tag geändert werden");
+    }
+
+    @Test
+    @WithMockUser(username = "TRAINER")
+    public void updateSeriesNotFound() throws Exception {
+        performPut("/rest/reservation/543636262/series",
+                new SeriesChange(LocalDate.now(), "Training", null, null, null))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     @WithMockUser(username = "TRAINER")
     public void updateOccupationNotFound() throws Exception {
@@ -621,6 +835,64 @@ public class ReservationServiceTest extends ProtocolTest {
         deleteReservation(543636262L).andExpect(status().isNotFound());
     }
 
+    @Test
+    @WithMockUser(username = "TRAINER")
+    public void deleteOccupations() throws Exception {
+        var reservation = createReservation(1, 3, 10, 2);
+        reservation.setRepeatType(RepeatType.weekly);
+        reservation.setRepeatUntil(reservation.getDate().plusWeeks(3));
+        var occupations = getReservation(addReservation(reservation)).getOccupations();
+        var kept = occupations.getLast();
+        var deleted = occupations.subList(0, occupations.size() - 1);
+
+        performDelete("/rest/reservation/occupations", deleted.stream().map(Occupation::getId).toList())
+                .andExpect(status().isOk());
+
+        for (var occupation : deleted) {
+            assertThat(occupationRepository.findById(occupation.getId())).isEmpty();
+            checkProtocol(OccupationMapper.map(occupation), ActionType.DELETE);
+        }
+        assertThat(occupationRepository.findById(kept.getId())).isPresent();
+        // the freed slot can be booked again
+        addReservation(createReservation(1, 3, 10, 2));
+    }
+
+    @Test
+    @WithMockUser(username = "TRAINER")
+    public void deleteOccupationsWithPath() throws Exception {
+        var reservation = createReservation(1, 3, 10, 2);
+        reservation.setRepeatType(RepeatType.weekly);
+        reservation.setRepeatUntil(reservation.getDate().plusWeeks(1));
+        var occupations = getReservation(addReservation(reservation)).getOccupations();
+
+        performDelete("/rest/reservation/occupations/" + occupations.stream()
+                .map(o -> Long.toString(o.getId()))
+                .collect(Collectors.joining(",")))
+                .andExpect(status().isOk());
+        occupations.forEach(o -> assertThat(occupationRepository.findById(o.getId())).isEmpty());
+    }
+
+    @Test
+    @WithMockUser(username = "REGISTERED")
+    public void deleteOccupationsOfOtherUser() throws Exception {
+        var reservation = reservationRepository.save(ReservationMapper.map(createReservation(1, trainer, 1, 10, 2)));
+        var occupation = occupationRepository.save(createOccupationEntity(reservation, 1));
+
+        performDelete("/rest/reservation/occupations", List.of(occupation.getId()))
+                .andExpect(status().isUnauthorized());
+        assertThat(occupationRepository.findById(occupation.getId())).isPresent();
+    }
+
+    @Test
+    @WithMockUser(username = "TRAINER")
+    public void deleteOccupationsNotFound() throws Exception {
+        var occupation = getReservation(addReservation(createReservation(1, 3, 10, 2))).getOccupations().getFirst();
+
+        performDelete("/rest/reservation/occupations", List.of(occupation.getId(), 543636262L))
+                .andExpect(status().isNotFound());
+        assertThat(occupationRepository.findById(occupation.getId())).isPresent();
+    }
+
     @Test
     public void getAllNotAuthorized() throws Exception {
         performGet("/reservation/get").andExpect(status().is3xxRedirection());
@@ -650,6 +922,203 @@ public class ReservationServiceTest extends ProtocolTest {
                 .andExpect(status().isOk()), reservation.getOccupations());
     }
 
+    @Test
+    @WithMockUser(username = "TRAINER")
+    public void getOccupationsWithOneStatement() throws Exception {
+        var weekly = createReservation(1, 3, 10, 2);
+        weekly.setRepeatType(RepeatType.weekly);
+        weekly.setRepeatUntil(weekly.getDate().plusWeeks(1));
+        addReservation(weekly);
+        addReservation(createReservation(1, 4, 12, 2));
+        var reservation = reservationRepository.save(ReservationMapper.map(createReservation(1, user, 5, 14, 2)));
+        occupationRepository.save(createOccupationEntity(reservation, 5));
+
+        var statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        var date = toEpochMilli(weekly.getDate());
+        // one statement for the occupations and one for the version (ETag) of the days
+
+        statistics.clear();
+        performGet("/rest/reservation/getOccupations/1/" + date)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", Matchers.hasSize(3)))
+                .andExpect(jsonPath("$[*].reservation.user.name", Matchers.hasItem(user.getName())));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+
+        statistics.clear();
+        performGet("/rest/reservation/occupations/1?from=%d&to=%d".formatted(date, toEpochMilli(weekly.getRepeatUntil())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", Matchers.hasSize(2)));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void occupationWrittenByTheCommitChangesTheVersion() {
+        var reservation = reservationRepository.save(ReservationMapper.map(createReservation(1, user, 5, 14, 2)));
+        var version = occupationVersions.getVersion(1, reservation.getDate());
+
+        // the entity is only inserted by the flush of the commit
+        occupationRepository.save(createOccupationEntity(reservation, 5));
+
+        assertThat(occupationVersions.getVersion(1, reservation.getDate())).isEqualTo(version + 1);
+    }
+
+    @Test
+    @WithMockUser(username = "TRAINER")
+    public void getCompactOccupations() throws Exception {
+        var reservation = createReservation(1, 3, 10, 2);
+        reservation.setCourts("3 4 6");
+        var saved = getReservation(addReservation(reservation));
+        assertThat(saved.getOccupations()).hasSize(2);
+
+        performGet("/rest/reservation/getOccupations/1/%d?view=compact".formatted(toEpochMilli(reservation.getDate())))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(jsonPath("$.occupations", Matchers.hasSize(2)))
+                .andExpect(jsonPath("$.occupations[0].reservation").doesNotExist())
+                .andExpect(jsonPath("$.reservations", Matchers.hasSize(1)))
+                .andExpect(jsonPath("$.occupations[1].reservationId").value(saved.getId()))
+                .andExpect(jsonPath("$.reservations[0].id").value(saved.getId()))
+                .andExpect(jsonPath("$.users", Matchers.hasSize(1)))
+                .andExpect(jsonPath("$.users[0].name").value(trainer.getName()))
+                .andExpect(jsonPath("$.users[0].password").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser(username = "TRAINER")
+    public void getOccupationsNotModified() throws Exception {
+        var reservation = getReservation(addReservation(createReservation(2, 2, 12, 1)));
+        var url = "/rest/reservation/getOccupations/2/" + toEpochMilli(reservation.getDate());
+        var eTag = performGet(url)
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        var statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        performGet(url, ifNoneMatch(eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        // the version of the day is cached
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+
+        addReservation(createReservation(2, 1, 12, 1));
+        var changedETag = performGet(url, ifNoneMatch(eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", Matchers.hasSize(2)))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(changedETag).isNotEqualTo(eTag);
+
+        // moving an occupation to another day changes the version of the previous day
+        var occupation = reservation.getOccupations().getFirst();
+        occupation.setDate(occupation.getDate().plusDays(1));
+        updateOccupation(occupation).andExpect(status().isOk());
+        performGet(url, ifNoneMatch(changedETag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", Matchers.hasSize(1)));
+    }
+
+    @Test
+    @WithMockUser(username = "TRAINER")
+    public void getOccupationsRangeNotModified() throws Exception {
+        var from = LocalDate.now();
+        var url = "/rest/reservation/occupations/2?from=%d&to=%d"
+                .formatted(toEpochMilli(from), toEpochMilli(from.plusDays(6)));
+        var eTag = performGet(url)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        performGet(url, ifNoneMatch(eTag)).andExpect(status().isNotModified());
+
+        addReservation(createReservation(2, 2, 12, 1));
+        performGet(url, ifNoneMatch(eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", Matchers.hasSize(1)));
+    }
+
+    @Test
+    @WithMockUser(username = "REGISTERED")
+    public void getFreeSlots() throws Exception {
+        var reservation = createReservation(2, 1, 8, 1);
+        reservation.setDate(LocalDate.now().plusDays(1));
+        addReservation(reservation);
+
+        performGet("/rest/reservation/free/2?date=%d&duration=1&courts=1"
+                .formatted(toEpochMilli(reservation.getDate())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", Matchers.hasSize(1)))
+                .andExpect(jsonPath("$[0].court").value(1))
+                .andExpect(jsonPath("$[0].start").value(9 * 3600 * 1000));
+        performGet("/rest/reservation/free/2?date=%d&duration=1"
+                .formatted(toEpochMilli(reservation.getDate())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].court").value(2))
+                .andExpect(jsonPath("$[1].court").value(1));
+        performGet("/rest/reservation/free/2?date=%d&duration=2"
+                .formatted(toEpochMilli(reservation.getDate())))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = "TRAINER")
+    public void streamOccupations() throws Exception {
+        var response = performGet("/rest/reservation/stream/2")
+                .andExpect(request().asyncStarted())
+                .andReturn().getResponse();
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertThat(response.getContentAsString())
+                .contains(":heartbeat"));
+
+        var reservation = getReservation(addReservation(createReservation(2, 2, 12, 1)));
+        addReservation(createReservation(1, 2, 12, 1));
+        deleteReservation(reservation.getId()).andExpect(status().isOk());
+
+        var id = reservation.getOccupations().getFirst().getId();
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertThat(response.getContentAsString())
+                .containsSubsequence(
+                        "event:create", "\"id\":" + id,
+                        "event:delete", "\"id\":" + id)
+                .doesNotContain("\"systemConfigId\":1,"));
+    }
+
+    @Test
+    @WithMockUser(username = "TRAINER")
+    public void getOccupationsRange() throws Exception {
+        var reservation = createReservation(1, 3, 10, 2);
+        reservation.setRepeatType(RepeatType.weekly);
+        reservation.setRepeatUntil(reservation.getDate().plusWeeks(3));
+        addReservation(reservation);
+        addReservation(createReservation(1, 4, 12, 2));
+
+        var from = reservation.getDate();
+        performGet("/rest/reservation/occupations/1?from=%d&to=%d"
+                .formatted(toEpochMilli(from), toEpochMilli(from.plusWeeks(2))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", Matchers.hasSize(3)))
+                .andExpect(jsonPath("$[0].date").value(utcEpochMilli(from)))
+                .andExpect(jsonPath("$[0].occupations", Matchers.hasSize(2)))
+                .andExpect(jsonPath("$[0].occupations[0].court").value(3))
+                .andExpect(jsonPath("$[0].occupations[1].court").value(4))
+                .andExpect(jsonPath("$[1].date").value(utcEpochMilli(from.plusWeeks(1))))
+                .andExpect(jsonPath("$[1].occupations", Matchers.hasSize(1)))
+                .andExpect(jsonPath("$[2].date").value(utcEpochMilli(from.plusWeeks(2))));
+    }
+
+    @Test
+    public void getOccupationsRangeEmpty() throws Exception {
+        performGet("/rest/reservation/occupations/1?from=0&to=0")
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isEmpty());
+    }
+
+    @Test
+    public void getOccupationsInvalidRange() throws Exception {
+        var today = LocalDate.now();
+        checkError(performGet("/rest/reservation/occupations/1?from=%d&to=%d"
+                        .formatted(toEpochMilli(today), toEpochMilli(today.minusDays(1)))),
+                HttpStatus.BAD_REQUEST, null);
+        checkError(performGet("/rest/reservation/occupations/1?from=%d&to=%d"
+                        .formatted(toEpochMilli(today), toEpochMilli(today.plusDays(ReservationService.MAX_OCCUPATION_RANGE_DAYS)))),
+                HttpStatus.BAD_REQUEST, null);
+    }
+
     @Test
     @WithMockUser(username = "TRAINER")
     public void getReservation() throws Exception {
@@ -675,6 +1144,14 @@ public class ReservationServiceTest extends ProtocolTest {
         return performDelete("/rest/reservation/" + id);
     }
 
+    private double cacheGets(String result) {
+        return meterRegistry.get("cache.gets")
+                .tag("cache", ReservationSystemConfigRepository.CACHE_NAME)
+                .tag("result", result)
+                .functionCounter()
+                .count();
+    }
+
     private ReservationSystemConfig getSystemConfig(long id) throws Exception {
         var content = performGet("/rest/reservation/systemconfig/" + id)
                 .andExpect(status().isOk())
@@ -776,6 +1253,28 @@ public class ReservationServiceTest extends ProtocolTest {
         return resultActions.andExpect(status().is(status.value()));
     }
 
+    private static OccupationEntity createOccupationEntity(ReservationEntity reservation, int court) {
+        var occupation = occupation(null, reservation.getSystemConfigId(), reservation.getDate(),
+                reservation.getStart(), reservation.getDuration(), court);
+        occupation.setText(reservation.getText());
+        occupation.setReservation(reservation);
+        return occupation;
+    }
+
+    private static HttpHeaders ifNoneMatch(String eTag) {
+        var headers = new HttpHeaders();
+        headers.setIfNoneMatch(eTag);
+        return headers;
+    }
+
+    private static long toEpochMilli(LocalDate date) {
+        return date.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static long utcEpochMilli(LocalDate date) {
+        return date.atStartOfDay().toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
     private Reservation getReservation(ResultActions resultAction) throws Exception {
         var content = resultAction
                 .andReturn()
@@ -2,7 +2,11 @@ package de.tigges.tchreservation.reservation;
 
 import de.tigges.tchreservation.ValidatorTest;
 import de.tigges.tchreservation.util.exception.ErrorCode;
+import de.tigges.tchreservation.util.exception.ErrorMessage;
+import de.tigges.tchreservation.reservation.jpa.OccupationEntity;
 import de.tigges.tchreservation.reservation.jpa.OccupationRepository;
+import de.tigges.tchreservation.reservation.model.Occupation;
+import de.tigges.tchreservation.reservation.model.OccupationConflict;
 import de.tigges.tchreservation.reservation.model.Reservation;
 import de.tigges.tchreservation.reservation.model.ReservationSystemConfig;
 import de.tigges.tchreservation.reservation.model.SystemConfigReservationType;
@@ -18,19 +22,24 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
-import static org.mockito.Mockito.mock;
+import static de.tigges.tchreservation.OccupationEntities.occupation;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
 
 class ReservationValidatorTest extends ValidatorTest {
     static final long SYSTEM_CONFIG_ID = 100L;
     static final int TYPE = 2345;
 
     private final OccupationRepository occupationRepositoryMock = mock(OccupationRepository.class);
+    private final OccupationVersions occupationVersionsMock = mock(OccupationVersions.class);
 
     private ReservationValidator reservationValidator;
 
     @BeforeEach
     void initValidator() {
-        OccupationValidator occupationValidator = new OccupationValidator(occupationRepositoryMock, createValidator());
+        OccupationValidator occupationValidator = new OccupationValidator(new OccupationIndex(occupationRepositoryMock, occupationVersionsMock), createValidator());
         reservationValidator = new ReservationValidator(occupationValidator, createValidator());
     }
 
@@ -62,6 +71,58 @@ class ReservationValidatorTest extends ValidatorTest {
 
     }
 
+    @Test
+    void conflictsByDate() {
+        var user = createUser(UserRole.REGISTERED);
+        var systemConfig = createSystemConfig(60, createType(UserRole.REGISTERED));
+        var reservation = createReservation();
+        var from = reservation.getDate();
+        for (int week = 0; week < 3; week++) {
+            reservation.getOccupations().add(createOccupation(from.plusWeeks(week)));
+        }
+        when(occupationRepositoryMock.findBySystemConfigIdAndDateBetween(SYSTEM_CONFIG_ID, from, from.plusWeeks(2)))
+                .thenReturn(List.of(occupiedEntity(1L, from.plusWeeks(1))));
+        initMessageSource(ErrorCode.OCCUPIED, "Pfui!");
+
+        var conflicts = reservationValidator.checkOccupations(reservation, user, systemConfig);
+
+        assertThat(conflicts).hasSize(1);
+        assertThat(conflicts.getFirst().date()).isEqualTo(from.plusWeeks(1));
+        assertThat(conflicts.getFirst().errorMessages()).extracting(ErrorMessage::message).containsExactly("Pfui!");
+        verify(occupationRepositoryMock, times(1)).findBySystemConfigIdAndDateBetween(anyLong(), any(), any());
+        verify(occupationRepositoryMock, never()).findBySystemConfigIdAndDate(anyLong(), any());
+    }
+
+    @Test
+    void longSeriesIsValidatedInParallelInOrder() {
+        var user = createUser(UserRole.REGISTERED);
+        var systemConfig = createSystemConfig(60, createType(UserRole.REGISTERED));
+        var reservation = createReservation();
+        var from = reservation.getDate();
+        var days = ReservationValidator.PARALLEL_THRESHOLD * 4;
+        for (int day = 0; day < days; day++) {
+            reservation.getOccupations().add(createOccupation(from.plusDays(day)));
+        }
+        reservation.getOccupations().get(100).setCourt(9);
+        var occupied = List.of(occupiedEntity(1L, from.plusDays(10)), occupiedEntity(2L, from.plusDays(50)),
+                occupiedEntity(3L, from.plusDays(150)));
+        when(occupationRepositoryMock.findBySystemConfigIdAndDateBetween(SYSTEM_CONFIG_ID, from, from.plusDays(days - 1)))
+                .thenReturn(occupied);
+        initMessageSource(ErrorCode.OCCUPIED, "Pfui!");
+        initMessageSource(ErrorCode.COURT_TOO_BIG, "Zu groß!");
+        // days written after the range load are not reloaded by the workers
+        when(occupationVersionsMock.getVersion(anyLong(), any())).thenReturn(1L);
+
+        var conflicts = reservationValidator.checkOccupations(reservation, user, systemConfig);
+
+        assertThat(conflicts).extracting(OccupationConflict::date).containsExactly(
+                from.plusDays(10), from.plusDays(50), from.plusDays(100), from.plusDays(150));
+        assertThat(conflicts.get(2).errorMessages()).extracting(ErrorMessage::message).containsExactly("Zu groß!");
+        assertThat(conflicts.get(3).errorMessages()).extracting(ErrorMessage::message).containsExactly("Pfui!");
+        verify(occupationRepositoryMock, times(1)).findBySystemConfigIdAndDateBetween(anyLong(), any(), any());
+        verify(occupationRepositoryMock, never()).findBySystemConfigIdAndDate(anyLong(), any());
+    }
+
     private void checkReservationFieldErrorNullNotAllowed(Reservation reservation, UserEntity user, ReservationSystemConfig systemConfig, String expectedField) {
         checkFieldError(() ->
                 reservationValidator.validateReservation(reservation, user, systemConfig), ErrorCode.NULL_NOT_ALLOWED, expectedField);
@@ -76,6 +137,22 @@ class ReservationValidatorTest extends ValidatorTest {
     }
 
 
+    private OccupationEntity occupiedEntity(long id, LocalDate date) {
+        return occupation(id, SYSTEM_CONFIG_ID, date, LocalTime.of(10, 0), 1, 1);
+    }
+
+    private Occupation createOccupation(LocalDate date) {
+        var occupation = new Occupation();
+        occupation.setSystemConfigId(SYSTEM_CONFIG_ID);
+        occupation.setType(TYPE);
+        occupation.setText("Text " + TYPE);
+        occupation.setDate(date);
+        occupation.setStart(LocalTime.of(10, 0));
+        occupation.setDuration(1);
+        occupation.setCourt(1);
+        return occupation;
+    }
+
     private UserEntity createUser(UserRole role) {
         var user = new UserEntity();
         user.setStatus(ActivationStatus.ACTIVE);
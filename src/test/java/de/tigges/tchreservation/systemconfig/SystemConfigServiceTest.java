@@ -3,6 +3,7 @@ package de.tigges.tchreservation.systemconfig;
 import tools.jackson.databind.ObjectMapper;
 import de.tigges.tchreservation.ProtocolTest;
 import de.tigges.tchreservation.TchReservationApplication;
+import de.tigges.tchreservation.reservation.ReservationSystemConfigRepository;
 import de.tigges.tchreservation.reservation.model.ReservationSystemConfig;
 import de.tigges.tchreservation.reservation.model.SystemConfigReservationType;
 import de.tigges.tchreservation.systemconfig.jpa.ReservationTypeEntity;
@@ -10,6 +11,7 @@ import de.tigges.tchreservation.systemconfig.jpa.ReservationTypeRepository;
 import de.tigges.tchreservation.systemconfig.jpa.SystemConfigEntity;
 import de.tigges.tchreservation.systemconfig.jpa.SystemConfigRepository;
 import de.tigges.tchreservation.user.model.UserRole;
+import de.tigges.tchreservation.util.exception.NotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -27,6 +29,7 @@ import java.util.Set;
 
 import static de.tigges.tchreservation.systemconfig.SystemConfigMapper.map;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(SpringExtension.class)
@@ -38,6 +41,8 @@ class SystemConfigServiceTest extends ProtocolTest {
     private SystemConfigRepository systemConfigRepository;
     @Autowired
     private ReservationTypeRepository reservationTypeRepository;
+    @Autowired
+    private ReservationSystemConfigRepository reservationSystemConfigRepository;
 
     @BeforeEach
     public void setup() {
@@ -45,6 +50,7 @@ class SystemConfigServiceTest extends ProtocolTest {
         userRepository.deleteAll();
         reservationTypeRepository.deleteAll();
         systemConfigRepository.deleteAll();
+        reservationSystemConfigRepository.invalidateAll();
         addUser(UserRole.REGISTERED);
         addUser(UserRole.ADMIN);
     }
@@ -151,6 +157,35 @@ class SystemConfigServiceTest extends ProtocolTest {
         assertThat(configs.getFirst().id()).isEqualTo(entity1.getId());
     }
 
+    @Test
+    @WithMockUser(username = "ADMIN")
+    void updateReplacesCachedConfig() throws Exception {
+        var config1 = map(createSystemConfigEntity(1L, "Platz 1"));
+        assertThat(reservationSystemConfigRepository.get(1L).name()).isEqualTo("unit test 1");
+
+        var config = new ReservationSystemConfig(config1.id(), "new name", "new title", List.of("Platz 1", "Platz 2"),
+                30, 7, 10, 10, 20, config1.types());
+        performPut("/rest/systemconfig", config)
+                .andExpect(status().is2xxSuccessful());
+
+        var cached = reservationSystemConfigRepository.get(1L);
+        assertThat(cached.name()).isEqualTo("new name");
+        assertThat(cached.courts()).containsExactly("Platz 1", "Platz 2");
+        assertThat(cached.types()).hasSize(1);
+    }
+
+    @Test
+    @WithMockUser(username = "ADMIN")
+    void deleteRemovesCachedConfig() throws Exception {
+        createSystemConfigEntity(1L, "Platz 1");
+        assertThat(reservationSystemConfigRepository.get(1L)).isNotNull();
+
+        performDelete("/rest/systemconfig/1")
+                .andExpect(status().is2xxSuccessful());
+
+        assertThrows(NotFoundException.class, () -> reservationSystemConfigRepository.get(1L));
+    }
+
     private ReservationSystemConfig get(long id) throws Exception {
         return response(
                 performGet("/rest/systemconfig/getone/" + id).andExpect(status().is2xxSuccessful()));
@@ -16,10 +16,17 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -167,6 +174,38 @@ class SystemConfigValidatorTest {
                 "Bitte geben Sie einen Wert an");
     }
 
+    @Test
+    void concurrentValidationsDoNotShareErrors() throws Exception {
+        var threads = 8;
+        var validations = 2000;
+        var start = new CountDownLatch(1);
+        try (var executor = Executors.newFixedThreadPool(threads)) {
+            var results = new ArrayList<Future<Integer>>();
+            for (int i = 0; i < validations; i++) {
+                // every validation has its own number of invalid courts, 0 is valid
+                var invalidCourts = i % 4;
+                results.add(executor.submit(() -> {
+                    start.await();
+                    var courts = new ArrayList<>(List.of("Pl1"));
+                    IntStream.range(0, invalidCourts).forEach(court -> courts.add("P" + court));
+                    var config = new ReservationSystemConfig(1L, "res1", null, courts, 30, 1, 2, 8, 22,
+                            List.of(createType(1), createType(2)));
+                    try {
+                        validator.validate(config, admin());
+                        return 0;
+                    } catch (InvalidDataException e) {
+                        assertTrue(e.getErrorMessages().stream().allMatch(m -> "court".equals(m.field())));
+                        return e.getErrorMessages().size();
+                    }
+                }));
+            }
+            start.countDown();
+            for (int i = 0; i < validations; i++) {
+                assertEquals(i % 4, results.get(i).get(30, TimeUnit.SECONDS), "errors of validation " + i);
+            }
+        }
+    }
+
     private void assertFieldError(ReservationSystemConfig config, String field, String message) {
         assertFieldError(assertThrows(InvalidDataException.class, () -> validator.validate(config, admin())), field,
                 message);
@@ -0,0 +1,123 @@
+package de.tigges.tchreservation.user;
+
+import de.tigges.tchreservation.user.jpa.UserEntity;
+import de.tigges.tchreservation.user.jpa.UserRepository;
+import de.tigges.tchreservation.user.model.ActivationStatus;
+import de.tigges.tchreservation.user.model.UserRole;
+import de.tigges.tchreservation.util.validation.Validator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LoggedInUserServiceTest {
+
+    private final UserRepository userRepositoryMock = mock(UserRepository.class);
+    private final LoggedInUserService loggedInUserService =
+            new LoggedInUserService(userRepositoryMock, mock(Validator.class), Duration.ofSeconds(30));
+    private final UserEntity user = createUser();
+
+    @BeforeEach
+    void login() {
+        when(userRepositoryMock.findByNameOrEmail("user", "user")).thenReturn(Optional.of(user));
+        when(userRepositoryMock.findByNameOrEmail("unknown", "unknown")).thenReturn(Optional.empty());
+        setPrincipal("user");
+        newRequest();
+    }
+
+    @AfterEach
+    void logout() {
+        SecurityContextHolder.clearContext();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void memoizedPerRequest() {
+        var first = loggedInUserService.getLoggedInUser();
+        var second = loggedInUserService.getLoggedInUser();
+
+        assertThat(second).isSameAs(first);
+        assertThat(first.getName()).isEqualTo("user");
+        verify(userRepositoryMock, times(1)).findByNameOrEmail("user", "user");
+    }
+
+    @Test
+    void firstLoadReturnsCopy() {
+        var loaded = loggedInUserService.getLoggedInUser();
+        newRequest();
+        var cached = loggedInUserService.getLoggedInUser();
+
+        assertThat(loaded).isNotSameAs(user).isEqualTo(user);
+        assertThat(cached).isNotSameAs(user).isEqualTo(user);
+    }
+
+    @Test
+    void cachedAcrossRequests() {
+        var first = loggedInUserService.getLoggedInUser();
+        newRequest();
+        var second = loggedInUserService.getLoggedInUser();
+
+        assertThat(second).isNotSameAs(first).isEqualTo(first);
+        verify(userRepositoryMock, times(1)).findByNameOrEmail("user", "user");
+    }
+
+    @Test
+    void invalidateRereadsUser() {
+        loggedInUserService.getLoggedInUser();
+        var lockedUser = new UserEntity(user);
+        lockedUser.setStatus(ActivationStatus.LOCKED);
+        when(userRepositoryMock.findByNameOrEmail("user", "user")).thenReturn(Optional.of(lockedUser));
+
+        loggedInUserService.invalidate(lockedUser);
+
+        assertThat(loggedInUserService.getLoggedInUser().getStatus()).isEqualTo(ActivationStatus.LOCKED);
+        newRequest();
+        assertThat(loggedInUserService.getLoggedInUser().getStatus()).isEqualTo(ActivationStatus.LOCKED);
+        verify(userRepositoryMock, times(2)).findByNameOrEmail("user", "user");
+    }
+
+    @Test
+    void unknownUserIsNotCached() {
+        setPrincipal("unknown");
+        assertThat(loggedInUserService.getLoggedInUser().getRole()).isEqualTo(UserRole.ANONYMOUS);
+        newRequest();
+        assertThat(loggedInUserService.getLoggedInUser().getRole()).isEqualTo(UserRole.ANONYMOUS);
+        verify(userRepositoryMock, times(2)).findByNameOrEmail("unknown", "unknown");
+    }
+
+    @Test
+    void principalChangesWithinRequest() {
+        loggedInUserService.getLoggedInUser();
+        setPrincipal("unknown");
+        assertThat(loggedInUserService.getLoggedInUser().getRole()).isEqualTo(UserRole.ANONYMOUS);
+    }
+
+    private static void setPrincipal(String name) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(name, "", List.of()));
+    }
+
+    private static void newRequest() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    }
+
+    private static UserEntity createUser() {
+        var user = new UserEntity("user@email.de", "user", "password", UserRole.REGISTERED, ActivationStatus.ACTIVE);
+        user.setId(42L);
+        return user;
+    }
+}
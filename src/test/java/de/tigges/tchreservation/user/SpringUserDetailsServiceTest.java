@@ -13,12 +13,15 @@ import static de.tigges.tchreservation.user.model.UserRole.TRAINER;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import de.tigges.tchreservation.protocol.jpa.ProtocolRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.CredentialsContainer;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.test.context.ActiveProfiles;
@@ -44,6 +47,8 @@ public class SpringUserDetailsServiceTest {
     private ProtocolRepository protocolRepository;
     @Autowired
     private SpringUserDetailsService service;
+    @Autowired
+    private MeterRegistry meterRegistry;
 
     @BeforeEach
     public void setup() {
@@ -81,6 +86,57 @@ public class SpringUserDetailsServiceTest {
         Assertions.assertThrows(UsernameNotFoundException.class, () -> service.loadUserByUsername("unknownuser"));
     }
 
+    @Test
+    public void cachedUntilUserChanges() {
+        var user = userRepository.save(new UserEntity("my@email.de", "user", "mypassword", REGISTERED, ACTIVE));
+        var hits = loadCount("hit");
+        var misses = loadCount("miss");
+
+        service.loadUserByUsername("user");
+        var cached = service.loadUserByUsername("user");
+        assertThat(cached.getPassword()).isEqualTo("mypassword");
+        assertThat(loadCount("miss") - misses).isEqualTo(1);
+        assertThat(loadCount("hit") - hits).isEqualTo(1);
+
+        user.setPassword("newpassword");
+        user.setStatus(LOCKED);
+        userRepository.save(user);
+
+        new UserChecker(service.loadUserByUsername("user")).assertDisabled().assertLocked();
+        assertThat(service.loadUserByUsername("user").getPassword()).isEqualTo("newpassword");
+        assertThat(loadCount("miss") - misses).isEqualTo(2);
+    }
+
+    @Test
+    public void erasedCredentialsDoNotAffectCache() {
+        userRepository.save(new UserEntity("my@email.de", "user", "mypassword", REGISTERED, ACTIVE));
+
+        var userDetails = service.loadUserByUsername("user");
+        ((CredentialsContainer) userDetails).eraseCredentials();
+
+        assertThat(service.loadUserByUsername("user").getPassword()).isEqualTo("mypassword");
+    }
+
+    @Test
+    public void removedUserIsNotFound() {
+        var user = userRepository.save(new UserEntity("my@email.de", "user", "mypassword", REGISTERED, ACTIVE));
+        service.loadUserByUsername("my@email.de");
+
+        userRepository.delete(user);
+
+        Assertions.assertThrows(UsernameNotFoundException.class, () -> service.loadUserByUsername("my@email.de"));
+    }
+
+    private long loadCount(String cache) {
+        return meterRegistry.find(SpringUserDetailsService.TIMER_NAME)
+                .tag("cache", cache)
+                .tag("result", "found")
+                .timers()
+                .stream()
+                .mapToLong(Timer::count)
+                .sum();
+    }
+
     private UserChecker createAndLoadUser(UserRole role, ActivationStatus status) {
         String username = role.name() + "." + status.name();
         userRepository.save(new UserEntity("my@email.de", username, "mypassword", role, status));
@@ -102,6 +102,15 @@ public class UserServiceTest extends ProtocolTest {
         checkProtocol(user, ActionType.MODIFY);
     }
 
+    @Test
+    @WithMockUser(username = "ADMIN")
+    public void lockedUserIsRejectedImmediately() throws Exception {
+        performGet("/rest/user/all").andExpect(status().isOk());
+        performPut("/rest/user/setStatus/" + adminUser.getId() + "/" + ActivationStatus.LOCKED)
+                .andExpect(status().isOk());
+        performGet("/rest/user/all").andExpect(status().isUnauthorized());
+    }
+
     @Test
     @WithMockUser(username = "ADMIN")
     public void setStatusAllCombinations() throws Exception {
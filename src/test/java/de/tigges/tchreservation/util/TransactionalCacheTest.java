@@ -0,0 +1,85 @@
+package de.tigges.tchreservation.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+class TransactionalCacheTest {
+
+    @Test
+    void cachedUntilInvalidated() {
+        var cache = new TransactionalCache<String, String>(10, null);
+
+        assertThat(cache.get("a", key -> "1")).isEqualTo("1");
+        assertThat(cache.get("a", key -> "2")).isEqualTo("1");
+        assertThat(cache.getHitCount()).isEqualTo(1);
+        assertThat(cache.getMissCount()).isEqualTo(1);
+
+        cache.invalidate("a");
+        assertThat(cache.get("a", key -> "2")).isEqualTo("2");
+        cache.invalidateIf((key, value) -> value.equals("2"));
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void getAllLoadsMissingKeysWithOneCall() {
+        var cache = new TransactionalCache<String, String>(10, null);
+        cache.get("a", key -> "1");
+
+        var values = cache.getAll(List.of("a", "b", "c"), missing -> {
+            assertThat(missing).containsExactly("b", "c");
+            return Map.of("b", "2", "c", "3");
+        });
+
+        assertThat(values).containsOnly(entry("a", "1"), entry("b", "2"), entry("c", "3"));
+        assertThat(cache.size()).isEqualTo(3);
+    }
+
+    @Test
+    void nullIsNotCached() {
+        var cache = new TransactionalCache<String, String>(10, null);
+
+        assertThat(cache.get("a", key -> null)).isNull();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void expiredEntriesAreLoadedAgain() {
+        var cache = new TransactionalCache<String, String>(10, Duration.ZERO);
+
+        cache.get("a", key -> "1");
+        assertThat(cache.getIfPresent("a")).isNull();
+        assertThat(cache.get("a", key -> "2")).isEqualTo("2");
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvicted() {
+        var cache = new TransactionalCache<String, String>(2, null);
+        cache.get("a", key -> "1");
+        cache.get("b", key -> "2");
+        cache.getIfPresent("a");
+
+        cache.get("c", key -> "3");
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.getIfPresent("a")).isEqualTo("1");
+        assertThat(cache.getIfPresent("b")).isNull();
+        assertThat(cache.getIfPresent("c")).isEqualTo("3");
+    }
+
+    @Test
+    void valueLoadedDuringInvalidationIsNotCached() {
+        var cache = new TransactionalCache<String, String>(10, null);
+
+        assertThat(cache.get("a", key -> {
+            cache.invalidateAll();
+            return "1";
+        })).isEqualTo("1");
+        assertThat(cache.size()).isZero();
+    }
+}
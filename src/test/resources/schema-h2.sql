@@ -0,0 +1,12 @@
+-- executed by the test profile after hibernate has created the schema
+
+-- replacement of the exclusion constraint occupation_no_overlap of schema-postgres.sql
+CREATE TRIGGER IF NOT EXISTS occupation_no_overlap BEFORE INSERT, UPDATE ON occupation
+    FOR EACH ROW CALL 'de.tigges.tchreservation.reservation.OccupationOverlapTrigger';
+
+-- same indexes as schema-postgres.sql; hibernate quotes the join column of the quoted user table
+CREATE INDEX IF NOT EXISTS protocol_entity_type_id ON protocol (entity_type, id);
+CREATE INDEX IF NOT EXISTS protocol_action_type_id ON protocol (action_type, id);
+CREATE INDEX IF NOT EXISTS protocol_user_id_id ON protocol ("user_id", id);
+CREATE INDEX IF NOT EXISTS protocol_time ON protocol (time);
+CREATE INDEX IF NOT EXISTS protocol_entity_type_entity_id_id ON protocol (entity_type, entity_id, id);